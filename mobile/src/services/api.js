@@ -225,9 +225,9 @@ const readCache = async (key) => {
     }
 };
 
-const writeCache = async (key, data) => {
+const writeCache = async (key, data, etag) => {
     try {
-        await AsyncStorage.setItem(cacheKey(key), JSON.stringify({ timestamp: Date.now(), data }));
+        await AsyncStorage.setItem(cacheKey(key), JSON.stringify({ timestamp: Date.now(), data, etag }));
     } catch (error) {}
 };
 
@@ -275,8 +275,18 @@ const getAllWithCache = async ({ url, cacheKeyName }) => {
     }
 
     try {
-        const response = await requestWithRetry({ method: 'GET', url });
-        await writeCache(cacheKeyName, response.data);
+        // Revalidate with the stored ETag; the server answers 304 when the household data is unchanged
+        const response = await requestWithRetry({
+            method: 'GET',
+            url,
+            headers: cached?.etag ? { 'If-None-Match': cached.etag } : undefined,
+            validateStatus: (status) => (status >= 200 && status < 300) || status === 304,
+        });
+        if (response.status === 304 && cached?.data) {
+            await writeCache(cacheKeyName, cached.data, cached.etag);
+            return cached.data;
+        }
+        await writeCache(cacheKeyName, response.data, response.headers?.etag);
         return response.data;
     } catch (error) {
         if (cached?.data) {
@@ -493,3 +503,14 @@ export const budgetService = {
         await api.delete(`${BUDGETS_URL}/${id}`);
     },
 };
+
+const SYNC_URL = `${BASE_URL}/sync`;
+
+export const syncService = {
+    // Pass the token from the previous call, or null for a full snapshot.
+    // When `full` is true, replace local lists instead of merging by id.
+    since: async (token) => {
+        const response = await api.get(SYNC_URL, { params: token ? { since: token } : {} });
+        return response.data; // { token, full, expenses, incomes, subscriptions, deleted: { expenses, incomes, subscriptions } }
+    },
+};
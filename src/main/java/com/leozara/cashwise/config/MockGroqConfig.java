@@ -0,0 +1,35 @@
+package com.leozara.cashwise.config;
+
+import com.leozara.cashwise.service.MockGroqServer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Runs the embedded Groq stand-in for local development and load tests. Enable with
+ * {@code SPRING_PROFILES_ACTIVE=mock-groq}; application-mock-groq.properties points
+ * {@code groq.api.url} at it.
+ */
+@Configuration
+@Profile("mock-groq")
+public class MockGroqConfig {
+
+    @Bean(destroyMethod = "close")
+    public MockGroqServer mockGroqServer(@Value("${mock-groq.port:8089}") int port,
+                                         @Value("${mock-groq.latency.median:300ms}") Duration latencyMedian,
+                                         @Value("${mock-groq.latency.p99:1500ms}") Duration latencyP99,
+                                         @Value("${mock-groq.error-rate:0}") double errorRate,
+                                         @Value("${mock-groq.error-statuses:429,503}") List<Integer> errorStatuses,
+                                         @Value("${mock-groq.chunk-delay:30ms}") Duration chunkDelay) throws IOException {
+        return new MockGroqServer(port)
+                .latency(latencyMedian, latencyP99)
+                .errors(errorRate, errorStatuses)
+                .chunkDelay(chunkDelay)
+                .start();
+    }
+}
@@ -1,21 +1,28 @@
 package com.leozara.cashwise.controller;
 
 import com.leozara.cashwise.dto.*;
+import com.leozara.cashwise.service.AiRequestCoalescer;
+import com.leozara.cashwise.service.AiRequestCoalescer.Endpoint;
 import com.leozara.cashwise.service.AiService;
+import com.leozara.cashwise.service.ChatStreamer;
 import com.leozara.cashwise.service.ExpenseService;
-import com.leozara.cashwise.service.IncomeService;
+import com.leozara.cashwise.service.GroqClient;
+import com.leozara.cashwise.service.InsightsCache;
+import com.leozara.cashwise.service.SpendingContextService;
 import com.leozara.cashwise.service.SubscriptionService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.time.format.TextStyle;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -26,8 +33,13 @@ public class AiController {
 
     private final AiService aiService;
     private final ExpenseService expenseService;
-    private final IncomeService incomeService;
     private final SubscriptionService subscriptionService;
+    private final InsightsCache insightsCache;
+    private final ChatStreamer chatStreamer;
+    private final AiRequestCoalescer coalescer;
+    private final SpendingContextService spendingContext;
+
+    private static final Set<String> RECEIPT_IMAGE_TYPES = Set.of("image/jpeg", "image/png", "image/webp", "image/gif");
 
     // ── Parse expense ──────────────────────────────────────────────────────────
 
@@ -54,14 +66,29 @@ public class AiController {
             Authentication authentication,
             @Valid @RequestBody ChatRequest request) {
         Long userId = (Long) authentication.getPrincipal();
-        String context = buildSpendingContext(userId, request.getExchangeRates(), request.getUserCurrency());
+        String context = spendingContext.build(userId, request.getExchangeRates(), request.getUserCurrency());
         String answer = aiService.chat(request.getQuestion(), context, request.getHistory());
         return ResponseEntity.ok(new ChatResponse(answer));
     }
 
+    /** Same as /chat, but the answer arrives as server-sent events while it is being generated. */
+    @PostMapping(value = "/chat/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<StreamingResponseBody> chatStream(
+            Authentication authentication,
+            @Valid @RequestBody ChatRequest request) {
+        Long userId = (Long) authentication.getPrincipal();
+        String context = spendingContext.build(userId, request.getExchangeRates(), request.getUserCurrency());
+        return ResponseEntity.ok()
+                .contentType(MediaType.TEXT_EVENT_STREAM)
+                .cacheControl(CacheControl.noStore())
+                // Stops nginx-style proxies from holding tokens back until the response ends
+                .header("X-Accel-Buffering", "no")
+                .body(chatStreamer.stream(request.getQuestion(), context, request.getHistory()));
+    }
+
     // ── Scan receipt ───────────────────────────────────────────────────────────
 
-    @PostMapping("/scan-receipt")
+    @PostMapping(value = "/scan-receipt", consumes = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<ParsedExpenseResponse> scanReceipt(
             @Valid @RequestBody ScanReceiptRequest request) {
         String mimeType = request.getMimeType() != null ? request.getMimeType() : "image/jpeg";
@@ -70,7 +97,25 @@ public class AiController {
         return ResponseEntity.ok(result);
     }
 
-    // ── Insights (cached per user, 6h TTL) ────────────────────────────────────
+    /**
+     * Same as above with the photo as the multipart part "image". Uploads over
+     * spring.servlet.multipart.max-file-size are refused with 413 before their body is read.
+     */
+    @PostMapping(value = "/scan-receipt", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ParsedExpenseResponse> scanReceiptUpload(@RequestPart("image") MultipartFile image) {
+        String mimeType = image.getContentType() != null ? image.getContentType() : "image/jpeg";
+        if (!RECEIPT_IMAGE_TYPES.contains(mimeType)) {
+            throw new IllegalArgumentException("Unsupported image type");
+        }
+        if (image.isEmpty()) {
+            throw new IllegalArgumentException("Image is empty");
+        }
+        ParsedExpenseResponse result = aiService.scanReceipt(
+                new GroqClient.ImageUpload(image, image.getSize(), mimeType), LocalDate.now());
+        return ResponseEntity.ok(result);
+    }
+
+    // ── Insights (cached per household and currency until its data changes) ───
 
     @PostMapping("/insights")
     public ResponseEntity<List<InsightDto>> getInsights(
@@ -79,8 +124,9 @@ public class AiController {
         Long userId = (Long) authentication.getPrincipal();
         Map<String, Double> rates = request != null ? request.getExchangeRates() : null;
         String currency = request != null ? request.getUserCurrency() : null;
-        String context = buildSpendingContext(userId, rates, currency);
-        List<InsightDto> insights = aiService.getInsights(context, userId);
+        List<InsightDto> insights = insightsCache.get(userId, currency,
+                () -> coalescer.run(Endpoint.INSIGHTS, userId, currency,
+                        () -> aiService.getInsights(spendingContext.build(userId, rates, currency))));
         return ResponseEntity.ok(insights);
     }
 
@@ -93,8 +139,8 @@ public class AiController {
         Long userId = (Long) authentication.getPrincipal();
         Map<String, Double> rates = request != null ? request.getExchangeRates() : null;
         String currency = request != null ? request.getUserCurrency() : null;
-        String context = buildSpendingContext(userId, rates, currency);
-        List<BudgetAdviceDto> advice = aiService.budgetAdvice(context);
+        List<BudgetAdviceDto> advice = coalescer.run(Endpoint.BUDGET_ADVICE, userId, currency,
+                () -> aiService.budgetAdvice(spendingContext.build(userId, rates, currency)));
         return ResponseEntity.ok(advice);
     }
 
@@ -164,176 +210,4 @@ public class AiController {
         suggestions.sort(Comparator.comparing(RecurringSuggestionDto::getOccurrences).reversed());
         return ResponseEntity.ok(suggestions.stream().limit(10).collect(Collectors.toList()));
     }
-
-    // ── Context builder ────────────────────────────────────────────────────────
-
-    private String buildSpendingContext(Long userId, Map<String, Double> exchangeRates, String userCurrency) {
-        LocalDate today = LocalDate.now();
-        LocalDate threeMonthsAgo = today.minusMonths(3);
-
-        List<ExpenseResponse> expenses = expenseService.getExpensesByDateRange(threeMonthsAgo, today, userId);
-        List<IncomeResponse> incomes = incomeService.getIncomesByDateRange(threeMonthsAgo, today, userId);
-        List<SubscriptionResponse> subscriptions = subscriptionService.getActiveSubscriptions(userId);
-
-        final String displayCurrency = (userCurrency != null && !userCurrency.isBlank())
-                ? userCurrency.toUpperCase() : "EUR";
-        final double eurToDisplay = (!"EUR".equals(displayCurrency) && exchangeRates != null
-                && exchangeRates.containsKey(displayCurrency)
-                && isPlausibleRate(exchangeRates.get(displayCurrency)))
-                ? exchangeRates.get(displayCurrency)
-                : 1.0;
-
-        DateTimeFormatter monthFmt = DateTimeFormatter.ofPattern("yyyy-MM");
-        LocalDate monthStart = today.withDayOfMonth(1);
-        String currentMonthKey = today.format(monthFmt);
-
-        // ── Aggregate incomes (each converted from its own stored currency) ──
-        double totalIncome = 0, currentMonthIncome = 0;
-        Map<String, Double> incomeByMonth = new TreeMap<>();
-        Map<String, Double> incomeByCategory = new TreeMap<>();
-        for (IncomeResponse i : incomes) {
-            double amt = toDisplay(i.getAmount().doubleValue(), i.getCurrency(), exchangeRates, displayCurrency, eurToDisplay);
-            totalIncome += amt;
-            incomeByMonth.merge(i.getDate().format(monthFmt), amt, Double::sum);
-            String cat = i.getCategory() != null ? i.getCategory() : "Other";
-            incomeByCategory.merge(cat, amt, Double::sum);
-            if (!i.getDate().isBefore(monthStart)) currentMonthIncome += amt;
-        }
-
-        // ── Aggregate expenses (each converted from its own stored currency) ──
-        double totalExpenses = 0, currentMonthExpenses = 0;
-        Map<String, Double> expenseByMonth = new TreeMap<>();
-        Map<String, Double> expenseByCategory = new TreeMap<>();
-        for (ExpenseResponse e : expenses) {
-            double amt = toDisplay(e.getAmount().doubleValue(), e.getCurrency(), exchangeRates, displayCurrency, eurToDisplay);
-            totalExpenses += amt;
-            expenseByMonth.merge(e.getDate().format(monthFmt), amt, Double::sum);
-            String cat = e.getCategory() != null ? e.getCategory() : "General";
-            expenseByCategory.merge(cat, amt, Double::sum);
-            if (!e.getDate().isBefore(monthStart)) currentMonthExpenses += amt;
-        }
-
-        // ── Subscriptions monthly cost ──
-        double monthlySubscriptionCost = subscriptions.stream().mapToDouble(s -> {
-            double amt = toDisplay(s.getAmount().doubleValue(), s.getCurrency(), exchangeRates, displayCurrency, eurToDisplay);
-            return "YEARLY".equals(s.getFrequency()) ? amt / 12.0 : amt;
-        }).sum();
-
-        Set<String> allMonths = new TreeSet<>();
-        allMonths.addAll(incomeByMonth.keySet());
-        allMonths.addAll(expenseByMonth.keySet());
-        int numMonths = Math.max(allMonths.size(), 1);
-
-        String monthLabel = today.getMonth().getDisplayName(TextStyle.FULL, Locale.ENGLISH) + " " + today.getYear();
-
-        StringBuilder sb = new StringBuilder();
-        sb.append("Today's date: ").append(today).append("\n");
-        sb.append("User's display currency: ").append(displayCurrency).append("\n");
-        sb.append("Data covers: last 3 months\n\n");
-
-        // Current month — this is the most important section for "how much this month" questions
-        sb.append("=== CURRENT MONTH (").append(monthLabel).append(", in progress) ===\n");
-        sb.append(String.format("Income this month:   %s %.2f\n", displayCurrency, currentMonthIncome));
-        sb.append(String.format("Expenses this month: %s %.2f\n", displayCurrency, currentMonthExpenses));
-        sb.append(String.format("Net this month:      %s %.2f\n\n", displayCurrency, currentMonthIncome - currentMonthExpenses));
-
-        // 3-month summary
-        sb.append("=== 3-MONTH SUMMARY ===\n");
-        sb.append(String.format("Total income:         %s %.2f\n", displayCurrency, totalIncome));
-        sb.append(String.format("Total expenses:       %s %.2f\n", displayCurrency, totalExpenses));
-        sb.append(String.format("Net savings:          %s %.2f\n", displayCurrency, totalIncome - totalExpenses));
-        sb.append(String.format("Avg monthly income:   %s %.2f\n", displayCurrency, totalIncome / numMonths));
-        sb.append(String.format("Avg monthly expenses: %s %.2f\n\n", displayCurrency, totalExpenses / numMonths));
-
-        // Month-by-month breakdown
-        if (!allMonths.isEmpty()) {
-            sb.append("=== MONTHLY BREAKDOWN ===\n");
-            for (String month : allMonths) {
-                double mInc = incomeByMonth.getOrDefault(month, 0.0);
-                double mExp = expenseByMonth.getOrDefault(month, 0.0);
-                String tag = month.equals(currentMonthKey) ? " ← current month" : "";
-                sb.append(String.format("%s: Income %s %.2f | Expenses %s %.2f | Net %s %.2f%s\n",
-                        month, displayCurrency, mInc, displayCurrency, mExp,
-                        displayCurrency, mInc - mExp, tag));
-            }
-            sb.append("\n");
-        }
-
-        // Expenses by category
-        if (!expenseByCategory.isEmpty()) {
-            sb.append("=== EXPENSES BY CATEGORY (3 months) ===\n");
-            expenseByCategory.entrySet().stream()
-                    .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
-                    .forEach(e -> sb.append(String.format("- %s: %s %.2f (avg %s %.2f/month)\n",
-                            e.getKey(), displayCurrency, e.getValue(),
-                            displayCurrency, e.getValue() / numMonths)));
-            sb.append("\n");
-        }
-
-        // Income by source/category
-        if (!incomeByCategory.isEmpty()) {
-            sb.append("=== INCOME SOURCES (3 months) ===\n");
-            incomeByCategory.entrySet().stream()
-                    .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
-                    .forEach(e -> sb.append(String.format("- %s: %s %.2f\n",
-                            e.getKey(), displayCurrency, e.getValue())));
-            sb.append("\n");
-        }
-
-        // Subscriptions
-        if (!subscriptions.isEmpty()) {
-            sb.append(String.format("=== ACTIVE SUBSCRIPTIONS (%d total, %s %.2f/month) ===\n",
-                    subscriptions.size(), displayCurrency, monthlySubscriptionCost));
-            subscriptions.forEach(s -> {
-                double amt = toDisplay(s.getAmount().doubleValue(), s.getCurrency(), exchangeRates, displayCurrency, eurToDisplay);
-                sb.append(String.format("- %s: %s %.2f (%s)\n",
-                        s.getDescription(), displayCurrency, amt, s.getFrequency()));
-            });
-            sb.append("\n");
-        }
-
-        // Exchange rates
-        if (exchangeRates != null && !exchangeRates.isEmpty()) {
-            sb.append("=== EXCHANGE RATES (1 EUR = ...) ===\n");
-            exchangeRates.entrySet().stream()
-                    .filter(e -> isPlausibleRate(e.getValue()))
-                    .sorted(Map.Entry.comparingByKey())
-                    .forEach(e -> sb.append(String.format("  %s: %.4f\n", e.getKey(), e.getValue())));
-            sb.append("Use ONLY these rates for currency conversions. Do not use your own training data rates.\n\n");
-        }
-
-        sb.append(String.format("Always express amounts in %s in your response.\n", displayCurrency));
-        return sb.toString();
-    }
-
-    /**
-     * Converts an amount from its stored currency to the user's display currency.
-     * All conversions go through EUR as the base (rates map is "1 EUR = X").
-     */
-    private double toDisplay(double amount, String storedCurrency,
-                             Map<String, Double> rates, String displayCurrency, double eurToDisplay) {
-        if (storedCurrency == null) return amount * eurToDisplay;
-        String stored = storedCurrency.toUpperCase();
-        String display = displayCurrency.toUpperCase();
-        if (stored.equals(display)) return amount;
-
-        // Convert stored → EUR
-        double amountInEur;
-        if ("EUR".equals(stored)) {
-            amountInEur = amount;
-        } else {
-            Double eurToStored = (rates != null) ? rates.get(stored) : null;
-            if (eurToStored == null || !isPlausibleRate(eurToStored)) return amount;
-            amountInEur = amount / eurToStored;
-        }
-
-        // Convert EUR → display
-        if ("EUR".equals(display)) return amountInEur;
-        return amountInEur * eurToDisplay;
-    }
-
-    /** Reject exchange rates outside any realistic currency pair range (0.0001 – 100000). */
-    private boolean isPlausibleRate(Double rate) {
-        return rate != null && rate > 0.0001 && rate < 100_000;
-    }
 }
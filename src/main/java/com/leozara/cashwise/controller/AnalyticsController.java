@@ -0,0 +1,41 @@
+package com.leozara.cashwise.controller;
+
+import com.leozara.cashwise.dto.AnalyticsSummaryResponse;
+import com.leozara.cashwise.security.AuthUtil;
+import com.leozara.cashwise.service.AnalyticsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/api/analytics")
+@RequiredArgsConstructor
+public class AnalyticsController {
+
+    private final AnalyticsService analyticsService;
+
+    /** Monthly totals per category and currency; defaults to the last 12 calendar months. */
+    @GetMapping("/summary")
+    public ResponseEntity<AnalyticsSummaryResponse> getSummary(
+            @RequestParam(required = false) LocalDate from,
+            @RequestParam(required = false) LocalDate to) {
+        Long userId = AuthUtil.getCurrentUserId();
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusMonths(11).withDayOfMonth(1);
+        return ResponseEntity.ok(analyticsService.getSummary(userId, start, end));
+    }
+
+    /** Recomputes the household's monthly rollups from its raw entries. */
+    @PostMapping("/rollups/rebuild")
+    public ResponseEntity<Void> rebuildRollups() {
+        Long userId = AuthUtil.getCurrentUserId();
+        analyticsService.rebuildRollups(userId);
+        return ResponseEntity.noContent().build();
+    }
+}
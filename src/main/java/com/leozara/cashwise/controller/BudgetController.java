@@ -9,6 +9,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -18,11 +19,12 @@ import java.util.List;
 public class BudgetController {
 
     private final BudgetService budgetService;
+    private final ConditionalResponses conditionalResponses;
 
     @GetMapping
-    public ResponseEntity<List<BudgetResponse>> getBudgets() {
+    public ResponseEntity<List<BudgetResponse>> getBudgets(WebRequest webRequest) {
         Long userId = AuthUtil.getCurrentUserId();
-        return ResponseEntity.ok(budgetService.getBudgets(userId));
+        return conditionalResponses.conditional(webRequest, userId, () -> budgetService.getBudgets(userId));
     }
 
     @PostMapping
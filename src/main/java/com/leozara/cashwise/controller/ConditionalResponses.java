@@ -0,0 +1,41 @@
+package com.leozara.cashwise.controller;
+
+import com.leozara.cashwise.service.HouseholdDataVersions;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.function.Supplier;
+
+/** Responses for household list endpoints that carry the household data version as ETag. */
+@Component
+@RequiredArgsConstructor
+class ConditionalResponses {
+
+    /** Clients may keep the body but must revalidate it; shared caches must not store it. */
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
+    private final HouseholdDataVersions dataVersions;
+
+    /**
+     * 304 without loading anything when the request's If-None-Match is the household's current data
+     * version, otherwise 200 with {@code body} and that version as ETag. Streamed bodies are JSON.
+     * Returns null for the 304, which {@link WebRequest#checkNotModified} has already written.
+     */
+    <T> ResponseEntity<T> conditional(WebRequest webRequest, Long userId, Supplier<T> body) {
+        String etag = dataVersions.etagFor(userId);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        T content = body.get();
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok().eTag(etag).cacheControl(REVALIDATE);
+        if (content instanceof StreamingResponseBody) {
+            ok.contentType(MediaType.APPLICATION_JSON);
+        }
+        return ok.body(content);
+    }
+}
@@ -6,7 +6,7 @@ import com.leozara.cashwise.dto.ExpenseResponse;
 import com.leozara.cashwise.dto.ExpenseUpdateRequest;
 import com.leozara.cashwise.dto.SubscriptionCreateRequest;
 import com.leozara.cashwise.security.AuthUtil;
-import com.leozara.cashwise.service.AiService;
+import com.leozara.cashwise.service.ExpenseCategorizer;
 import com.leozara.cashwise.service.ExpenseService;
 import com.leozara.cashwise.service.SubscriptionService;
 import jakarta.validation.Valid;
@@ -19,6 +19,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -32,20 +33,32 @@ public class ExpenseController {
 
     private final ExpenseService expenseService;
     private final SubscriptionService subscriptionService;
-    private final AiService aiService;
+    private final ConditionalResponses conditionalResponses;
+    private final ExpenseCategorizer categorizer;
 
     private static final String SUBSCRIPTION_CATEGORY = "Subscriptions";
 
     @GetMapping
     public ResponseEntity<?> getAllExpenses(
             @RequestParam(required = false) Integer page,
-            @RequestParam(required = false) Integer size) {
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String cursor,
+            WebRequest webRequest) {
         Long userId = AuthUtil.getCurrentUserId();
+        return conditionalResponses.conditional(webRequest, userId, () -> listExpenses(userId, page, size, cursor));
+    }
+
+    /** Cursor page, numbered page or, without either, the whole list streamed as a JSON array. */
+    private Object listExpenses(Long userId, Integer page, Integer size, String cursor) {
+        if (cursor != null) {
+            int limit = Math.max(1, Math.min(size != null ? size : 50, 50));
+            return expenseService.getExpensesAfter(userId, cursor, limit);
+        }
         if (page != null && size != null) {
             var pageable = PageRequest.of(page, Math.min(size, 50), Sort.by("date").descending());
-            return ResponseEntity.ok(expenseService.getAllExpenses(userId, pageable));
+            return expenseService.getAllExpenses(userId, pageable);
         }
-        return ResponseEntity.ok(expenseService.getAllExpenses(userId));
+        return expenseService.streamAllExpenses(userId);
     }
 
     @GetMapping("/{id}")
@@ -104,32 +117,43 @@ public class ExpenseController {
     }
 
     @GetMapping("/category/{category}")
-    public ResponseEntity<List<ExpenseResponse>> getExpensesByCategory(@PathVariable String category) {
+    public ResponseEntity<List<ExpenseResponse>> getExpensesByCategory(
+            @PathVariable String category,
+            WebRequest webRequest) {
         Long userId = AuthUtil.getCurrentUserId();
-        return ResponseEntity.ok(expenseService.getExpensesByCategory(category, userId));
+        return conditionalResponses.conditional(webRequest, userId,
+                () -> expenseService.getExpensesByCategory(category, userId));
     }
 
     @GetMapping("/currency/{currency}")
-    public ResponseEntity<List<ExpenseResponse>> getExpensesByCurrency(@PathVariable String currency) {
+    public ResponseEntity<List<ExpenseResponse>> getExpensesByCurrency(
+            @PathVariable String currency,
+            WebRequest webRequest) {
         Long userId = AuthUtil.getCurrentUserId();
-        return ResponseEntity.ok(expenseService.getExpensesByCurrency(currency, userId));
+        return conditionalResponses.conditional(webRequest, userId,
+                () -> expenseService.getExpensesByCurrency(currency, userId));
     }
 
     @GetMapping("/date-range")
     public ResponseEntity<List<ExpenseResponse>> getExpensesByDateRange(
             @RequestParam LocalDate start,
-            @RequestParam LocalDate end) {
+            @RequestParam LocalDate end,
+            WebRequest webRequest) {
         if (start.isAfter(end)) {
             return ResponseEntity.badRequest().build();
         }
         Long userId = AuthUtil.getCurrentUserId();
-        return ResponseEntity.ok(expenseService.getExpensesByDateRange(start, end, userId));
+        return conditionalResponses.conditional(webRequest, userId,
+                () -> expenseService.getExpensesByDateRange(start, end, userId));
     }
 
     @GetMapping("/date/{date}")
-    public ResponseEntity<List<ExpenseResponse>> getExpensesByDate(@PathVariable LocalDate date) {
+    public ResponseEntity<List<ExpenseResponse>> getExpensesByDate(
+            @PathVariable LocalDate date,
+            WebRequest webRequest) {
         Long userId = AuthUtil.getCurrentUserId();
-        return ResponseEntity.ok(expenseService.getExpensesByDate(date, userId));
+        return conditionalResponses.conditional(webRequest, userId,
+                () -> expenseService.getExpensesByDate(date, userId));
     }
 
     @PostMapping("/bulk")
@@ -146,7 +170,7 @@ public class ExpenseController {
         if (description.trim().isEmpty()) {
             return ResponseEntity.badRequest().build();
         }
-        String category = aiService.suggestCategory(description);
+        String category = categorizer.suggestForUser(description, AuthUtil.getCurrentUserId());
         return ResponseEntity.ok(new CategorySuggestionResponse(description, category));
     }
 }
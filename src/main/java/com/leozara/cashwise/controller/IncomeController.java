@@ -14,6 +14,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -25,17 +26,29 @@ import java.util.List;
 public class IncomeController {
 
     private final IncomeService incomeService;
+    private final ConditionalResponses conditionalResponses;
 
     @GetMapping
     public ResponseEntity<?> getAllIncomes(
             @RequestParam(required = false) Integer page,
-            @RequestParam(required = false) Integer size) {
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String cursor,
+            WebRequest webRequest) {
         Long userId = AuthUtil.getCurrentUserId();
+        return conditionalResponses.conditional(webRequest, userId, () -> listIncomes(userId, page, size, cursor));
+    }
+
+    /** Cursor page, numbered page or, without either, the whole list streamed as a JSON array. */
+    private Object listIncomes(Long userId, Integer page, Integer size, String cursor) {
+        if (cursor != null) {
+            int limit = Math.max(1, Math.min(size != null ? size : 50, 50));
+            return incomeService.getIncomesAfter(userId, cursor, limit);
+        }
         if (page != null && size != null) {
             var pageable = PageRequest.of(page, Math.min(size, 50), Sort.by("date").descending());
-            return ResponseEntity.ok(incomeService.getAllIncomes(userId, pageable));
+            return incomeService.getAllIncomes(userId, pageable);
         }
-        return ResponseEntity.ok(incomeService.getAllIncomes(userId));
+        return incomeService.streamAllIncomes(userId);
     }
 
     @GetMapping("/{id}")
@@ -74,25 +87,31 @@ public class IncomeController {
     }
 
     @GetMapping("/currency/{currency}")
-    public ResponseEntity<List<IncomeResponse>> getIncomesByCurrency(@PathVariable String currency) {
+    public ResponseEntity<List<IncomeResponse>> getIncomesByCurrency(
+            @PathVariable String currency,
+            WebRequest webRequest) {
         Long userId = AuthUtil.getCurrentUserId();
-        return ResponseEntity.ok(incomeService.getIncomesByCurrency(currency, userId));
+        return conditionalResponses.conditional(webRequest, userId,
+                () -> incomeService.getIncomesByCurrency(currency, userId));
     }
 
     @GetMapping("/date-range")
     public ResponseEntity<List<IncomeResponse>> getIncomesByDateRange(
             @RequestParam LocalDate start,
-            @RequestParam LocalDate end) {
+            @RequestParam LocalDate end,
+            WebRequest webRequest) {
         if (start.isAfter(end)) {
             return ResponseEntity.badRequest().build();
         }
         Long userId = AuthUtil.getCurrentUserId();
-        return ResponseEntity.ok(incomeService.getIncomesByDateRange(start, end, userId));
+        return conditionalResponses.conditional(webRequest, userId,
+                () -> incomeService.getIncomesByDateRange(start, end, userId));
     }
 
     @GetMapping("/date/{date}")
-    public ResponseEntity<List<IncomeResponse>> getIncomesByDate(@PathVariable LocalDate date) {
+    public ResponseEntity<List<IncomeResponse>> getIncomesByDate(@PathVariable LocalDate date, WebRequest webRequest) {
         Long userId = AuthUtil.getCurrentUserId();
-        return ResponseEntity.ok(incomeService.getIncomesByDate(date, userId));
+        return conditionalResponses.conditional(webRequest, userId,
+                () -> incomeService.getIncomesByDate(date, userId));
     }
 }
@@ -13,6 +13,7 @@ import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -22,23 +23,36 @@ import java.util.List;
 public class SubscriptionController {
 
     private final SubscriptionService subscriptionService;
+    private final ConditionalResponses conditionalResponses;
 
     @GetMapping
     public ResponseEntity<?> getAll(
             @RequestParam(required = false) Integer page,
-            @RequestParam(required = false) Integer size) {
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String cursor,
+            WebRequest webRequest) {
         Long userId = AuthUtil.getCurrentUserId();
+        return conditionalResponses.conditional(webRequest, userId, () -> listSubscriptions(userId, page, size, cursor));
+    }
+
+    /** Cursor page, numbered page or, without either, the whole list. */
+    private Object listSubscriptions(Long userId, Integer page, Integer size, String cursor) {
+        if (cursor != null) {
+            int limit = Math.max(1, Math.min(size != null ? size : 200, 200));
+            return subscriptionService.getSubscriptionsAfter(userId, cursor, limit);
+        }
         if (page != null && size != null) {
             var pageable = PageRequest.of(page, Math.min(size, 200), Sort.by("description").ascending());
-            return ResponseEntity.ok(subscriptionService.getAllSubscriptions(userId, pageable));
+            return subscriptionService.getAllSubscriptions(userId, pageable);
         }
-        return ResponseEntity.ok(subscriptionService.getAllSubscriptions(userId));
+        return subscriptionService.getAllSubscriptions(userId);
     }
 
     @GetMapping("/active")
-    public ResponseEntity<List<SubscriptionResponse>> getActive() {
+    public ResponseEntity<List<SubscriptionResponse>> getActive(WebRequest webRequest) {
         Long userId = AuthUtil.getCurrentUserId();
-        return ResponseEntity.ok(subscriptionService.getActiveSubscriptions(userId));
+        return conditionalResponses.conditional(webRequest, userId,
+                () -> subscriptionService.getActiveSubscriptions(userId));
     }
 
     @PostMapping
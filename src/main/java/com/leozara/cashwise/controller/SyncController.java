@@ -0,0 +1,26 @@
+package com.leozara.cashwise.controller;
+
+import com.leozara.cashwise.dto.SyncResponse;
+import com.leozara.cashwise.security.AuthUtil;
+import com.leozara.cashwise.service.SyncService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/sync")
+@RequiredArgsConstructor
+public class SyncController {
+
+    private final SyncService syncService;
+
+    /** Rows changed or deleted since {@code since}; omit it for a full snapshot. */
+    @GetMapping
+    public ResponseEntity<SyncResponse> sync(@RequestParam(required = false) String since) {
+        Long userId = AuthUtil.getCurrentUserId();
+        return ResponseEntity.ok(syncService.changesSince(userId, since));
+    }
+}
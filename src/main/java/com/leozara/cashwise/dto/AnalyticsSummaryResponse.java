@@ -0,0 +1,17 @@
+package com.leozara.cashwise.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class AnalyticsSummaryResponse {
+
+    private LocalDate from;
+    private LocalDate to;
+    private List<MonthlyTotalDto> expenses;
+    private List<MonthlyTotalDto> incomes;
+}
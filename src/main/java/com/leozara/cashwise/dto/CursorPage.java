@@ -0,0 +1,15 @@
+package com.leozara.cashwise.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/** One keyset page of a list. {@code next} is an opaque cursor, null on the last page. */
+@Data
+@AllArgsConstructor
+public class CursorPage<T> {
+
+    private List<T> items;
+    private String next;
+}
@@ -15,10 +15,12 @@ public class ExpenseResponse {
     private String currency;
     private LocalDate date;
     private String category;
+    private boolean categoryPending;
     private String groupId;
     private Long userId;
     private Long householdId;
     private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
     private String addedByName;
     private String addedByUsername;
 }
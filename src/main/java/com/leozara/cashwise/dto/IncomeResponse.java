@@ -18,6 +18,7 @@ public class IncomeResponse {
     private Long userId;
     private Long householdId;
     private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
     private String addedByName;
     private String addedByUsername;
 }
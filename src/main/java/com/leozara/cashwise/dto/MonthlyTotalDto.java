@@ -0,0 +1,17 @@
+package com.leozara.cashwise.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+@Data
+@AllArgsConstructor
+public class MonthlyTotalDto {
+
+    private String month;      // yyyy-MM
+    private String category;
+    private String currency;   // totals are per stored currency, never converted
+    private BigDecimal total;
+    private long count;
+}
@@ -21,6 +21,7 @@ public class SubscriptionResponse {
     private Long userId;
     private Long householdId;
     private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
     private String addedByName;
     private String addedByUsername;
 }
@@ -0,0 +1,30 @@
+package com.leozara.cashwise.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Household rows changed since a sync token. When {@code full} is true the lists are the complete
+ * data set and the client must replace what it holds instead of merging.
+ */
+@Data
+@AllArgsConstructor
+public class SyncResponse {
+
+    private String token;
+    private boolean full;
+    private List<ExpenseResponse> expenses;
+    private List<IncomeResponse> incomes;
+    private List<SubscriptionResponse> subscriptions;
+    private Deleted deleted;
+
+    @Data
+    @AllArgsConstructor
+    public static class Deleted {
+        private List<Long> expenses;
+        private List<Long> incomes;
+        private List<Long> subscriptions;
+    }
+}
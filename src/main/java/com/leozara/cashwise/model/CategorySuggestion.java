@@ -0,0 +1,26 @@
+package com.leozara.cashwise.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "category_suggestions")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CategorySuggestion {
+
+    @Id
+    @Column(name = "normalized_description", length = 200)
+    private String normalizedDescription;
+
+    @Column(nullable = false, length = 50)
+    private String category;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -18,7 +18,8 @@ import java.time.LocalDateTime;
 public class Expense {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "expense_id")
+    @SequenceGenerator(name = "expense_id", sequenceName = "expenses_id_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank
@@ -45,6 +46,10 @@ public class Expense {
     @Column(nullable = false)
     private String category;
 
+    /** True while the category is provisional and a background categorization is outstanding. */
+    @Column(name = "category_pending", nullable = false)
+    private boolean categoryPending;
+
     @Column(name = "group_id", length = 64)
     private String groupId;
 
@@ -57,8 +62,17 @@ public class Expense {
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
 
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
+        updatedAt = createdAt;
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
     }
 }
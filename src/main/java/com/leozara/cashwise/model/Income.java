@@ -18,7 +18,8 @@ import java.time.LocalDateTime;
 public class Income {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "income_id")
+    @SequenceGenerator(name = "income_id", sequenceName = "incomes_id_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank
@@ -54,8 +55,17 @@ public class Income {
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
 
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
+        updatedAt = createdAt;
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
     }
 }
@@ -0,0 +1,58 @@
+package com.leozara.cashwise.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Entity
+@Table(name = "monthly_rollups")
+@IdClass(MonthlyRollup.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MonthlyRollup {
+
+    public static final String EXPENSE = "EXPENSE";
+    public static final String INCOME = "INCOME";
+
+    @Id
+    @Column(name = "household_id")
+    private Long householdId;
+
+    @Id
+    private LocalDate month; // first day of the month
+
+    @Id
+    @Column(length = 50)
+    private String category;
+
+    @Id
+    @Column(length = 3)
+    private String currency;
+
+    @Id
+    @Column(length = 10)
+    private String kind; // EXPENSE | INCOME
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal total;
+
+    @Column(nullable = false)
+    private Long entries;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long householdId;
+        private LocalDate month;
+        private String category;
+        private String currency;
+        private String kind;
+    }
+}
@@ -0,0 +1,46 @@
+package com.leozara.cashwise.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/** Records that a household row was deleted, so delta sync can tell clients to drop it. */
+@Entity
+@Table(name = "sync_tombstones")
+@Data
+@NoArgsConstructor
+public class SyncTombstone {
+
+    public static final String EXPENSE = "EXPENSE";
+    public static final String INCOME = "INCOME";
+    public static final String SUBSCRIPTION = "SUBSCRIPTION";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "household_id", nullable = false)
+    private Long householdId;
+
+    @Column(name = "entity_type", nullable = false, length = 20)
+    private String entityType; // EXPENSE | INCOME | SUBSCRIPTION
+
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+
+    @Column(name = "deleted_at", nullable = false)
+    private LocalDateTime deletedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        deletedAt = LocalDateTime.now();
+    }
+
+    public SyncTombstone(Long householdId, String entityType, Long entityId) {
+        this.householdId = householdId;
+        this.entityType = entityType;
+        this.entityId = entityId;
+    }
+}
@@ -0,0 +1,7 @@
+package com.leozara.cashwise.repository;
+
+/** Description of an expense together with the category it was filed under. */
+public interface CategorizedDescriptionView {
+    String getDescription();
+    String getCategory();
+}
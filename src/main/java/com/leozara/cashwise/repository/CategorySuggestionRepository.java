@@ -0,0 +1,28 @@
+package com.leozara.cashwise.repository;
+
+import com.leozara.cashwise.model.CategorySuggestion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface CategorySuggestionRepository extends JpaRepository<CategorySuggestion, String> {
+
+    @Query("SELECT s FROM CategorySuggestion s WHERE s.normalizedDescription = :key AND s.updatedAt >= :since")
+    Optional<CategorySuggestion> findFresh(String key, LocalDateTime since);
+
+    @Modifying
+    @Query(value = "INSERT INTO category_suggestions (normalized_description, category, updated_at) " +
+            "VALUES (:key, :category, NOW()) " +
+            "ON CONFLICT (normalized_description) DO UPDATE SET category = EXCLUDED.category, updated_at = NOW()",
+            nativeQuery = true)
+    void upsert(String key, String category);
+
+    @Modifying
+    @Query("DELETE FROM CategorySuggestion s WHERE s.updatedAt < :before")
+    int deleteOlderThan(LocalDateTime before);
+}
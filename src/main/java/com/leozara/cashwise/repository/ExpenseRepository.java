@@ -1,16 +1,23 @@
 package com.leozara.cashwise.repository;
 
 import com.leozara.cashwise.model.Expense;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ExpenseRepository extends JpaRepository<Expense, Long> {
@@ -39,8 +46,16 @@ public interface ExpenseRepository extends JpaRepository<Expense, Long> {
 
     Page<Expense> findByHouseholdId(Long householdId, Pageable pageable);
 
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Expense> streamByHouseholdId(Long householdId);
+
     Optional<Expense> findByIdAndHouseholdId(Long id, Long householdId);
 
+    List<Expense> findByHouseholdIdAndUpdatedAtAfter(Long householdId, LocalDateTime since);
+
     List<Expense> findByCategoryAndHouseholdId(String category, Long householdId);
 
     List<Expense> findByDateBetweenAndHouseholdId(LocalDate startDate, LocalDate endDate, Long householdId);
@@ -48,4 +63,37 @@ public interface ExpenseRepository extends JpaRepository<Expense, Long> {
     List<Expense> findByCurrencyAndHouseholdId(String currency, Long householdId);
 
     List<Expense> findByDateAndHouseholdId(LocalDate date, Long householdId);
+
+    @Query("SELECT e FROM Expense e WHERE e.householdId = :householdId ORDER BY e.date DESC, e.id DESC")
+    List<Expense> findKeysetFirstPage(Long householdId, Pageable limit);
+
+    @Query("SELECT e FROM Expense e WHERE e.householdId = :householdId " +
+            "AND (e.date < :date OR (e.date = :date AND e.id < :id)) " +
+            "ORDER BY e.date DESC, e.id DESC")
+    List<Expense> findKeysetPageAfter(Long householdId, LocalDate date, Long id, Pageable limit);
+
+    /** Locks the row so an edit and a background categorization cannot both apply rollup deltas from the same state. */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT e FROM Expense e WHERE e.id = :id AND e.householdId = :householdId")
+    Optional<Expense> findByIdAndHouseholdIdForUpdate(Long id, Long householdId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT e FROM Expense e WHERE e.id = :id AND e.categoryPending = true")
+    Optional<Expense> findPendingForUpdate(Long id);
+
+    @Query("SELECT e.id FROM Expense e WHERE e.categoryPending = true AND e.updatedAt < :before ORDER BY e.updatedAt")
+    List<Long> findPendingIdsUpdatedBefore(LocalDateTime before, Pageable limit);
+
+    /** Most recent categorized expenses of a household, newest first; the categorizer trains on them. */
+    @Query("SELECT e.description AS description, e.category AS category FROM Expense e " +
+            "WHERE e.householdId = :householdId AND e.category IS NOT NULL ORDER BY e.date DESC, e.id DESC")
+    List<CategorizedDescriptionView> findRecentCategorized(Long householdId, Pageable limit);
+
+    @Query(value = "SELECT to_char(date_trunc('month', e.date), 'YYYY-MM') AS month, " +
+            "COALESCE(e.category, 'General') AS category, e.currency AS currency, " +
+            "SUM(e.amount) AS total, COUNT(*) AS entries " +
+            "FROM expenses e WHERE e.household_id = :householdId AND e.date BETWEEN :from AND :to " +
+            "GROUP BY e.household_id, date_trunc('month', e.date), COALESCE(e.category, 'General'), e.currency " +
+            "ORDER BY month, category, currency", nativeQuery = true)
+    List<MonthlyTotalView> sumByMonthCategoryCurrency(Long householdId, LocalDate from, LocalDate to);
 }
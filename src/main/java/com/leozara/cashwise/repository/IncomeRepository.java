@@ -1,16 +1,23 @@
 package com.leozara.cashwise.repository;
 
 import com.leozara.cashwise.model.Income;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface IncomeRepository extends JpaRepository<Income, Long> {
@@ -35,11 +42,40 @@ public interface IncomeRepository extends JpaRepository<Income, Long> {
 
     Page<Income> findByHouseholdId(Long householdId, Pageable pageable);
 
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Income> streamByHouseholdId(Long householdId);
+
     Optional<Income> findByIdAndHouseholdId(Long id, Long householdId);
 
+    /** Locks the row so two concurrent edits cannot both apply rollup deltas from the same state. */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM Income i WHERE i.id = :id AND i.householdId = :householdId")
+    Optional<Income> findByIdAndHouseholdIdForUpdate(Long id, Long householdId);
+
+    List<Income> findByHouseholdIdAndUpdatedAtAfter(Long householdId, LocalDateTime since);
+
     List<Income> findByDateBetweenAndHouseholdId(LocalDate startDate, LocalDate endDate, Long householdId);
 
     List<Income> findByCurrencyAndHouseholdId(String currency, Long householdId);
 
     List<Income> findByDateAndHouseholdId(LocalDate date, Long householdId);
+
+    @Query("SELECT i FROM Income i WHERE i.householdId = :householdId ORDER BY i.date DESC, i.id DESC")
+    List<Income> findKeysetFirstPage(Long householdId, Pageable limit);
+
+    @Query("SELECT i FROM Income i WHERE i.householdId = :householdId " +
+            "AND (i.date < :date OR (i.date = :date AND i.id < :id)) " +
+            "ORDER BY i.date DESC, i.id DESC")
+    List<Income> findKeysetPageAfter(Long householdId, LocalDate date, Long id, Pageable limit);
+
+    @Query(value = "SELECT to_char(date_trunc('month', i.date), 'YYYY-MM') AS month, " +
+            "COALESCE(i.category, 'Other') AS category, i.currency AS currency, " +
+            "SUM(i.amount) AS total, COUNT(*) AS entries " +
+            "FROM incomes i WHERE i.household_id = :householdId AND i.date BETWEEN :from AND :to " +
+            "GROUP BY i.household_id, date_trunc('month', i.date), COALESCE(i.category, 'Other'), i.currency " +
+            "ORDER BY month, category, currency", nativeQuery = true)
+    List<MonthlyTotalView> sumByMonthCategoryCurrency(Long householdId, LocalDate from, LocalDate to);
 }
@@ -0,0 +1,84 @@
+package com.leozara.cashwise.repository;
+
+import com.leozara.cashwise.model.MonthlyRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface MonthlyRollupRepository extends JpaRepository<MonthlyRollup, MonthlyRollup.Key> {
+
+    /** A write that lands between a rebuild's delete and insert must not fail the rebuild. */
+    String REBUILD_CONFLICT = "ON CONFLICT (household_id, month, category, currency, kind) DO UPDATE SET " +
+            "total = EXCLUDED.total, entries = EXCLUDED.entries";
+
+    @Query(value = "SELECT to_char(r.month, 'YYYY-MM') AS month, r.category AS category, r.currency AS currency, " +
+            "r.total AS total, r.entries AS entries FROM monthly_rollups r " +
+            "WHERE r.household_id = :householdId AND r.kind = :kind AND r.month BETWEEN :from AND :to " +
+            "AND r.entries > 0 ORDER BY r.month, r.category, r.currency", nativeQuery = true)
+    List<MonthlyTotalView> findTotals(Long householdId, String kind, LocalDate from, LocalDate to);
+
+    /** Adds a (possibly negative) delta to one bucket, creating it on first use. */
+    @Modifying
+    @Query(value = "INSERT INTO monthly_rollups (household_id, month, category, currency, kind, total, entries) " +
+            "VALUES (:householdId, :month, :category, :currency, :kind, :total, :entries) " +
+            "ON CONFLICT (household_id, month, category, currency, kind) DO UPDATE SET " +
+            "total = monthly_rollups.total + EXCLUDED.total, entries = monthly_rollups.entries + EXCLUDED.entries",
+            nativeQuery = true)
+    void addDelta(Long householdId, LocalDate month, String category, String currency, String kind,
+                  BigDecimal total, long entries);
+
+    @Modifying
+    @Query(value = "DELETE FROM monthly_rollups WHERE household_id = :householdId AND entries <= 0", nativeQuery = true)
+    void deleteEmpty(Long householdId);
+
+    /** Removes a user's expenses from their households' buckets, ahead of deleting those rows in bulk. */
+    @Modifying
+    @Query(value = "UPDATE monthly_rollups r SET total = r.total - d.total, entries = r.entries - d.entries " +
+            "FROM (SELECT household_id, CAST(date_trunc('month', date) AS DATE) AS month, category, currency, " +
+            "SUM(amount) AS total, COUNT(*) AS entries FROM expenses " +
+            "WHERE user_id = :userId AND household_id IS NOT NULL GROUP BY 1, 2, 3, 4) d " +
+            "WHERE r.household_id = d.household_id AND r.month = d.month AND r.category = d.category " +
+            "AND r.currency = d.currency AND r.kind = 'EXPENSE'", nativeQuery = true)
+    void subtractExpensesOfUser(Long userId);
+
+    /** Income counterpart of {@link #subtractExpensesOfUser(Long)}. */
+    @Modifying
+    @Query(value = "UPDATE monthly_rollups r SET total = r.total - d.total, entries = r.entries - d.entries " +
+            "FROM (SELECT household_id, CAST(date_trunc('month', date) AS DATE) AS month, " +
+            "COALESCE(category, 'Other') AS category, currency, SUM(amount) AS total, COUNT(*) AS entries " +
+            "FROM incomes WHERE user_id = :userId AND household_id IS NOT NULL GROUP BY 1, 2, 3, 4) d " +
+            "WHERE r.household_id = d.household_id AND r.month = d.month AND r.category = d.category " +
+            "AND r.currency = d.currency AND r.kind = 'INCOME'", nativeQuery = true)
+    void subtractIncomesOfUser(Long userId);
+
+    @Modifying
+    @Query(value = "DELETE FROM monthly_rollups WHERE entries <= 0", nativeQuery = true)
+    void deleteAllEmpty();
+
+    @Modifying
+    @Query(value = "DELETE FROM monthly_rollups WHERE (CAST(:householdId AS BIGINT) IS NULL OR household_id = :householdId)",
+            nativeQuery = true)
+    void deleteForRebuild(Long householdId);
+
+    @Modifying
+    @Query(value = "INSERT INTO monthly_rollups (household_id, month, category, currency, kind, total, entries) " +
+            "SELECT household_id, CAST(date_trunc('month', date) AS DATE), category, currency, 'EXPENSE', " +
+            "SUM(amount), COUNT(*) FROM expenses " +
+            "WHERE household_id IS NOT NULL AND (CAST(:householdId AS BIGINT) IS NULL OR household_id = :householdId) " +
+            "GROUP BY 1, 2, 3, 4 " + REBUILD_CONFLICT, nativeQuery = true)
+    void rebuildExpenses(Long householdId);
+
+    @Modifying
+    @Query(value = "INSERT INTO monthly_rollups (household_id, month, category, currency, kind, total, entries) " +
+            "SELECT household_id, CAST(date_trunc('month', date) AS DATE), COALESCE(category, 'Other'), currency, " +
+            "'INCOME', SUM(amount), COUNT(*) FROM incomes " +
+            "WHERE household_id IS NOT NULL AND (CAST(:householdId AS BIGINT) IS NULL OR household_id = :householdId) " +
+            "GROUP BY 1, 2, 3, 4 " + REBUILD_CONFLICT, nativeQuery = true)
+    void rebuildIncomes(Long householdId);
+}
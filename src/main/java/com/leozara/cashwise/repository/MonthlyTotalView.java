@@ -0,0 +1,12 @@
+package com.leozara.cashwise.repository;
+
+import java.math.BigDecimal;
+
+/** One aggregated row of a household's entries: the total of a category in one currency for one month. */
+public interface MonthlyTotalView {
+    String getMonth();
+    String getCategory();
+    String getCurrency();
+    BigDecimal getTotal();
+    Long getEntries();
+}
@@ -9,6 +9,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -37,7 +38,17 @@ public interface SubscriptionRepository extends JpaRepository<Subscription, Long
 
     Optional<Subscription> findByIdAndHouseholdId(Long id, Long householdId);
 
+    List<Subscription> findByHouseholdIdAndUpdatedAtAfter(Long householdId, LocalDateTime since);
+
     List<Subscription> findByActiveTrueAndHouseholdId(Long householdId);
 
     List<Subscription> findByActiveTrueAndNextDueDateLessThanEqualAndHouseholdId(LocalDate date, Long householdId);
+
+    @Query("SELECT s FROM Subscription s WHERE s.householdId = :householdId ORDER BY s.description ASC, s.id ASC")
+    List<Subscription> findKeysetFirstPage(Long householdId, Pageable limit);
+
+    @Query("SELECT s FROM Subscription s WHERE s.householdId = :householdId " +
+            "AND (s.description > :description OR (s.description = :description AND s.id > :id)) " +
+            "ORDER BY s.description ASC, s.id ASC")
+    List<Subscription> findKeysetPageAfter(Long householdId, String description, Long id, Pageable limit);
 }
@@ -0,0 +1,34 @@
+package com.leozara.cashwise.repository;
+
+import com.leozara.cashwise.model.SyncTombstone;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface SyncTombstoneRepository extends JpaRepository<SyncTombstone, Long> {
+
+    List<SyncTombstone> findByHouseholdIdAndDeletedAtAfter(Long householdId, LocalDateTime since);
+
+    /**
+     * Tombstones every household row a user added, ahead of deleting them in bulk with the account.
+     * {@code deletedAt} comes from the JVM clock like the rows' own timestamps, not the database's NOW().
+     */
+    @Modifying
+    @Query(value = "INSERT INTO sync_tombstones (household_id, entity_type, entity_id, deleted_at) " +
+            "SELECT household_id, 'EXPENSE', id, CAST(:deletedAt AS timestamp) FROM expenses " +
+            "WHERE user_id = :userId AND household_id IS NOT NULL " +
+            "UNION ALL SELECT household_id, 'INCOME', id, CAST(:deletedAt AS timestamp) FROM incomes " +
+            "WHERE user_id = :userId AND household_id IS NOT NULL " +
+            "UNION ALL SELECT household_id, 'SUBSCRIPTION', id, CAST(:deletedAt AS timestamp) FROM subscriptions " +
+            "WHERE user_id = :userId AND household_id IS NOT NULL", nativeQuery = true)
+    void insertForUser(Long userId, LocalDateTime deletedAt);
+
+    @Modifying
+    @Query("DELETE FROM SyncTombstone t WHERE t.deletedAt < :before")
+    int deleteOlderThan(LocalDateTime before);
+}
@@ -4,6 +4,8 @@ import com.leozara.cashwise.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -16,4 +18,13 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
 
     boolean existsByUsername(String username);
+
+    List<AuthorView> findAuthorsByIdIn(Collection<Long> ids);
+
+    /** Minimal projection used to label household entries with who added them. */
+    interface AuthorView {
+        Long getId();
+        String getName();
+        String getUsername();
+    }
 }
@@ -0,0 +1,21 @@
+package com.leozara.cashwise.scheduler;
+
+import com.leozara.cashwise.service.CategorySuggestionCache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CategorySuggestionPruner {
+
+    private final CategorySuggestionCache suggestionCache;
+
+    @Scheduled(cron = "0 45 3 * * *")
+    public void pruneDaily() {
+        int removed = suggestionCache.pruneExpired();
+        log.info("Pruned {} expired category suggestions", removed);
+    }
+}
@@ -0,0 +1,23 @@
+package com.leozara.cashwise.scheduler;
+
+import com.leozara.cashwise.service.CategorizationWorker;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PendingCategorizationSweeper {
+
+    private final CategorizationWorker categorizationWorker;
+
+    @Scheduled(fixedDelayString = "${app.categorization.sweep-interval-ms:60000}")
+    public void sweep() {
+        int resubmitted = categorizationWorker.resubmitStale();
+        if (resubmitted > 0) {
+            log.info("Re-queued {} expenses still waiting for a category", resubmitted);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.leozara.cashwise.scheduler;
+
+import com.leozara.cashwise.service.MonthlyRollupService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Recomputes all monthly rollups once at startup, e.g. after restoring a backup or editing rows by hand:
+ * {@code java -jar cashwise.jar --app.rollups.rebuild-on-startup=true}
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.rollups.rebuild-on-startup", havingValue = "true")
+public class RollupRebuildRunner implements ApplicationRunner {
+
+    private final MonthlyRollupService rollupService;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        rollupService.rebuildAll();
+    }
+}
@@ -0,0 +1,21 @@
+package com.leozara.cashwise.scheduler;
+
+import com.leozara.cashwise.service.SyncService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SyncTombstonePruner {
+
+    private final SyncService syncService;
+
+    @Scheduled(cron = "0 30 3 * * *")
+    public void pruneDaily() {
+        int removed = syncService.pruneTombstones();
+        log.info("Pruned {} sync tombstones", removed);
+    }
+}
@@ -0,0 +1,76 @@
+package com.leozara.cashwise.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight for the household-wide AI endpoints. When several devices of one household ask for
+ * the same thing at once, the first request builds the spending context and calls Groq; the others
+ * wait for its result instead of repeating the work.
+ *
+ * <p>Requests are only joined while they agree on household, endpoint, display currency and data
+ * version, so a request made after a write never receives an answer computed before it. Joined
+ * requests are counted in {@code ai.requests.coalesced}, tagged by {@code endpoint}.
+ */
+@Component
+public class AiRequestCoalescer {
+
+    public enum Endpoint { INSIGHTS, BUDGET_ADVICE }
+
+    private record Key(Endpoint endpoint, Long householdId, String currency, long dataVersion) {}
+
+    private final HouseholdMembershipResolver memberships;
+    private final HouseholdDataVersions dataVersions;
+    private final Map<Key, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Map<Endpoint, Counter> coalesced = new EnumMap<>(Endpoint.class);
+
+    public AiRequestCoalescer(HouseholdMembershipResolver memberships,
+                              HouseholdDataVersions dataVersions,
+                              MeterRegistry meterRegistry) {
+        this.memberships = memberships;
+        this.dataVersions = dataVersions;
+        for (Endpoint endpoint : Endpoint.values()) {
+            coalesced.put(endpoint, meterRegistry.counter("ai.requests.coalesced",
+                    "endpoint", endpoint.name().toLowerCase(Locale.ROOT)));
+        }
+    }
+
+    /** Runs {@code work}, or waits for the identical call already running for the user's household. */
+    @SuppressWarnings("unchecked")
+    public <T> T run(Endpoint endpoint, Long userId, String currency, Supplier<T> work) {
+        Long householdId = memberships.getHouseholdId(userId);
+        String currencyKey = currency == null || currency.isBlank() ? "EUR" : currency.toUpperCase(Locale.ROOT);
+        Key key = new Key(endpoint, householdId, currencyKey, dataVersions.version(householdId));
+
+        CompletableFuture<Object> own = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(key, own);
+        if (running != null) {
+            coalesced.get(endpoint).increment();
+            try {
+                return (T) running.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) throw cause;
+                throw e;
+            }
+        }
+        try {
+            T result = work.get();
+            own.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, own);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.leozara.cashwise.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.leozara.cashwise.service.GroqClient.Operation;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
+
+/**
+ * Groq answers keyed by a SHA-256 of the exact request: operation, model, temperature, token limit
+ * and messages. There is nothing to invalidate: when a household's data changes its spending context
+ * changes, and so does the key. Stale entries simply stop being asked for and age out of the bounded
+ * cache. Reported as the {@code cache.*} metrics with {@code cache=ai_responses}.
+ */
+@Component
+public class AiResponseCache {
+
+    private final ObjectMapper canonicalJson = JsonMapper.builder()
+            .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+            .build();
+    private final Cache<String, String> cache;
+
+    public AiResponseCache(MeterRegistry meterRegistry,
+                           @Value("${app.ai-response-cache.max-size:5000}") long maxSize,
+                           @Value("${app.ai-response-cache.ttl:24h}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "ai_responses");
+    }
+
+    /** Content address of a chat completions request body. */
+    public String key(Operation operation, Map<String, Object> body) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(operation.name().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(canonicalJson.writeValueAsBytes(body));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException("Cannot hash AI request", e);
+        }
+    }
+
+    /** The cached answer, or null. */
+    public String get(String key) {
+        return cache.getIfPresent(key);
+    }
+
+    public void put(String key, String content) {
+        cache.put(key, content);
+    }
+}
@@ -5,41 +5,39 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.leozara.cashwise.dto.BudgetAdviceDto;
 import com.leozara.cashwise.dto.InsightDto;
 import com.leozara.cashwise.dto.ParsedExpenseResponse;
+import com.leozara.cashwise.service.GroqClient.Operation;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.*;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
 import java.time.LocalDate;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 @Slf4j
 @Service
+@RequiredArgsConstructor
 public class AiService {
 
-    @Value("${groq.api.key}")
-    private String groqApiKey;
-
-    @Value("${groq.api.url}")
-    private String groqApiUrl;
-
     @Value("${groq.model}")
     private String groqModel;
 
     @Value("${groq.vision.model:llama-3.2-11b-vision-preview}")
     private String groqVisionModel;
 
-    private final RestTemplate restTemplate = createRestTemplate();
+    @Value("${groq.category-batch-size:50}")
+    private int categoryBatchSize;
+
+    private final GroqClient groqClient;
+    private final AiResponseCache responseCache;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
-    private record InsightsCacheEntry(List<InsightDto> data, long timestamp) {
-        static final long TTL_MS = 6 * 60 * 60 * 1000L;
-        boolean isFresh() { return System.currentTimeMillis() - timestamp < TTL_MS; }
-    }
-    private final Map<Long, InsightsCacheEntry> insightsCache = new ConcurrentHashMap<>();
+    // Answers reused for identical prompts (AiResponseCache); categories have caches of their own,
+    // chat turns and receipt images do not repeat
+    private static final Set<Operation> CACHED_OPERATIONS =
+            EnumSet.of(Operation.PARSE_EXPENSE, Operation.PARSE_INCOME, Operation.INSIGHTS, Operation.BUDGET_ADVICE);
 
     private static final String CATEGORIES =
             "Food, Delivery, Groceries, Shopping, Restaurants, Transport, Travel, " +
@@ -47,7 +45,7 @@ public class AiService {
             "Insurance, Wealth, Refund, Cashback, ChildAllowance, Investment, Loan, " +
             "Credit, Savings, Donation, Salary, Gift, TopUps, NetSales, Interest, Remittances";
 
-    private static final Set<String> VALID_CATEGORIES = Set.of(
+    static final Set<String> VALID_CATEGORIES = Set.of(
             "Food", "Delivery", "Groceries", "Shopping", "Restaurants", "Transport", "Travel",
             "Entertainment", "Health", "Services", "General", "Utilities",
             "Cash", "Transfers", "Insurance", "Wealth", "Refund",
@@ -56,21 +54,15 @@ public class AiService {
             "NetSales", "Interest", "Remittances"
     );
 
-    private static RestTemplate createRestTemplate() {
-        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
-        factory.setConnectTimeout(10_000);
-        factory.setReadTimeout(30_000);
-        return new RestTemplate(factory);
-    }
-
-    public void invalidateInsightsCache(Long userId) {
-        insightsCache.remove(userId);
-    }
-
     // ── Category suggestion ────────────────────────────────────────────────────
 
-    public String suggestCategory(String description) {
-        if (!isConfigured()) return "General";
+    /**
+     * Groq's category for the description, "General" when it answered with something off the list.
+     * Empty when Groq could not be asked or the call failed, so callers can tell an outage from an
+     * answer and try again later.
+     */
+    public Optional<String> suggestCategory(String description) {
+        if (!isConfigured()) return Optional.empty();
         try {
             String sanitized = description.length() > 200 ? description.substring(0, 200) : description;
             String prompt = "Categorize this expense: '" + sanitized +
@@ -78,11 +70,59 @@ public class AiService {
                     "Examples: 'bought groceries' -> Groceries, 'uber ride' -> Transport, " +
                     "'lunch at restaurant' -> Restaurants. Return ONLY the category name.";
 
-            String result = callGroqText(prompt, groqModel, 50).trim();
-            return VALID_CATEGORIES.contains(result) ? result : "General";
+            String result = callGroqText(Operation.CATEGORY, prompt, groqModel, 50).trim();
+            return Optional.of(VALID_CATEGORIES.contains(result) ? result : "General");
         } catch (Exception e) {
             log.warn("Error suggesting category: {}", e.getMessage());
-            return "General";
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Categories for many descriptions at once, one Groq call per {@code groq.category-batch-size}
+     * distinct descriptions. Answers off the list map to "General"; descriptions whose call failed
+     * are left out.
+     */
+    public Map<String, String> suggestCategories(Collection<String> descriptions) {
+        List<String> distinct = new ArrayList<>(new LinkedHashSet<>(descriptions));
+        Map<String, String> result = new HashMap<>();
+        for (int from = 0; from < distinct.size(); from += categoryBatchSize) {
+            List<String> chunk = distinct.subList(from, Math.min(from + categoryBatchSize, distinct.size()));
+            List<String> categories = isConfigured() ? suggestCategoryChunk(chunk) : List.of();
+            if (categories.isEmpty()) continue;
+            for (int i = 0; i < chunk.size(); i++) {
+                String category = categories.get(i);
+                result.put(chunk.get(i), category != null && VALID_CATEGORIES.contains(category) ? category : "General");
+            }
+        }
+        return result;
+    }
+
+    private List<String> suggestCategoryChunk(List<String> descriptions) {
+        try {
+            StringBuilder items = new StringBuilder();
+            for (int i = 0; i < descriptions.size(); i++) {
+                String description = descriptions.get(i).replaceAll("\\s+", " ");
+                String sanitized = description.length() > 200 ? description.substring(0, 200) : description;
+                items.append(i + 1).append(". ").append(sanitized).append('\n');
+            }
+            String prompt = "Categorize each of these " + descriptions.size() + " expenses:\n" + items +
+                    "\nUse ONLY category names from this exact list: " + CATEGORIES + ".\n" +
+                    "Return ONLY a JSON object with key \"categories\" containing an array of exactly " +
+                    descriptions.size() + " category names, in the same order as the expenses.\n" +
+                    "Example for 2 expenses: {\"categories\":[\"Groceries\",\"Transport\"]}";
+
+            String json = extractJson(callGroqText(Operation.CATEGORY_BATCH, prompt, groqModel, 20 + descriptions.size() * 8));
+            Map<String, Object> wrapper = objectMapper.readValue(json, new TypeReference<>() {});
+            if (!(wrapper.get("categories") instanceof List<?> categories)) return List.of();
+            if (categories.size() != descriptions.size()) {
+                log.warn("Category batch returned {} results for {} expenses", categories.size(), descriptions.size());
+                return List.of();
+            }
+            return categories.stream().map(c -> c == null ? null : String.valueOf(c).trim()).toList();
+        } catch (Exception e) {
+            log.warn("Error suggesting categories for {} expenses: {}", descriptions.size(), e.getMessage());
+            return List.of();
         }
     }
 
@@ -104,7 +144,7 @@ public class AiService {
                     "\"lunch 45 euros yesterday\" -> {\"description\":\"Lunch\",\"amount\":45.0,\"date\":\"" + today.minusDays(1) + "\",\"category\":\"Restaurants\",\"currency\":\"EUR\"}\n" +
                     "Return ONLY the JSON object, no other text.";
 
-            String json = extractJson(callGroqText(prompt, groqModel, 250));
+            String json = extractJson(callGroqText(Operation.PARSE_EXPENSE, prompt, groqModel, 250));
             ParsedExpenseResponse result = objectMapper.readValue(json, ParsedExpenseResponse.class);
             if (result.getDate() == null) result.setDate(today.toString());
             if (result.getCategory() == null || !VALID_CATEGORIES.contains(result.getCategory())) {
@@ -119,75 +159,117 @@ public class AiService {
 
     // ── Spending coach chat ─────────────────────────────────────────────────────
 
+    static final String CHAT_NOT_CONFIGURED = "AI features require a GROQ_API_KEY to be configured.";
+    static final String CHAT_ERROR = "I'm having trouble analyzing your data right now. Please try again.";
+
     public String chat(String question, String spendingContext, List<Map<String, String>> history) {
-        if (!isConfigured()) return "AI features require a GROQ_API_KEY to be configured.";
+        if (!isConfigured()) return CHAT_NOT_CONFIGURED;
         try {
-            String systemPrompt = "You are a helpful personal finance assistant for CashWise. " +
-                    "The user's financial data is provided below — ALWAYS use these exact numbers when answering. " +
-                    "NEVER say you lack data or cannot answer if the information is present in the data below. " +
-                    "Be concise and specific. Use bullet points for lists. Keep responses under 250 words.\n\n" +
-                    "USER'S FINANCIAL DATA:\n" + spendingContext;
-
-            List<Map<String, Object>> messages = new ArrayList<>();
-            messages.add(Map.of("role", "system", "content", systemPrompt));
-
-            // Include up to last 20 history messages (10 exchanges)
-            if (history != null && !history.isEmpty()) {
-                int start = Math.max(0, history.size() - 20);
-                for (int i = start; i < history.size(); i++) {
-                    Map<String, String> msg = history.get(i);
-                    String role = msg.get("role");
-                    String content = msg.get("content");
-                    if (("user".equals(role) || "assistant".equals(role)) && content != null) {
-                        messages.add(Map.of("role", role, "content", content));
-                    }
-                }
-            }
-
-            messages.add(Map.of("role", "user", "content", question));
-            return callGroqMessages(messages, groqModel, 800, 0.65);
+            return callGroqMessages(Operation.CHAT, chatMessages(question, spendingContext, history), groqModel, 800, 0.65);
         } catch (Exception e) {
             log.warn("Error in AI chat: {}", e.getMessage());
-            return "I'm having trouble analyzing your data right now. Please try again.";
+            return CHAT_ERROR;
+        }
+    }
+
+    /**
+     * Same answer as {@link #chat}, handed to {@code onDelta} piece by piece as Groq generates it.
+     * If {@code onDelta} throws, the exception propagates and the Groq request is cancelled.
+     */
+    public void streamChat(String question, String spendingContext, List<Map<String, String>> history,
+                           Consumer<String> onDelta) throws IOException {
+        if (!isConfigured()) {
+            onDelta.accept(CHAT_NOT_CONFIGURED);
+            return;
+        }
+        Map<String, Object> body = groqBody(chatMessages(question, spendingContext, history), groqModel, 800, 0.65);
+        try (GroqClient.CompletionStream stream = groqClient.stream(Operation.CHAT, body)) {
+            String delta;
+            while ((delta = stream.next()) != null) {
+                onDelta.accept(delta);
+            }
         }
     }
 
+    private List<Map<String, Object>> chatMessages(String question, String spendingContext,
+                                                   List<Map<String, String>> history) {
+        String systemPrompt = "You are a helpful personal finance assistant for CashWise. " +
+                "The user's financial data is provided below — ALWAYS use these exact numbers when answering. " +
+                "NEVER say you lack data or cannot answer if the information is present in the data below. " +
+                "Be concise and specific. Use bullet points for lists. Keep responses under 250 words.\n\n" +
+                "USER'S FINANCIAL DATA:\n" + spendingContext;
+
+        List<Map<String, Object>> messages = new ArrayList<>();
+        messages.add(Map.of("role", "system", "content", systemPrompt));
+
+        // Include up to last 20 history messages (10 exchanges)
+        if (history != null && !history.isEmpty()) {
+            int start = Math.max(0, history.size() - 20);
+            for (int i = start; i < history.size(); i++) {
+                Map<String, String> msg = history.get(i);
+                String role = msg.get("role");
+                String content = msg.get("content");
+                if (("user".equals(role) || "assistant".equals(role)) && content != null) {
+                    messages.add(Map.of("role", role, "content", content));
+                }
+            }
+        }
+
+        messages.add(Map.of("role", "user", "content", question));
+        return messages;
+    }
+
     // ── Receipt scanning ───────────────────────────────────────────────────────
 
+    private static final String RECEIPT_PROMPT =
+            "Extract expense data from this receipt. Return ONLY a JSON object with keys:\n" +
+            "- \"description\": merchant or store name (max 50 chars)\n" +
+            "- \"amount\": total amount as a number (null if not visible)\n" +
+            "- \"date\": YYYY-MM-DD (null if not visible)\n" +
+            "- \"category\": one of [" + CATEGORIES + "]\n" +
+            "- \"currency\": 3-letter ISO code (null if not visible)\n" +
+            "Return ONLY the JSON object, no other text.";
+
     public ParsedExpenseResponse scanReceipt(String base64Image, String mimeType, LocalDate today) {
         if (!isConfigured()) return new ParsedExpenseResponse(null, null, today.toString(), "General", null);
         try {
-            String textPrompt = "Extract expense data from this receipt. Return ONLY a JSON object with keys:\n" +
-                    "- \"description\": merchant or store name (max 50 chars)\n" +
-                    "- \"amount\": total amount as a number (null if not visible)\n" +
-                    "- \"date\": YYYY-MM-DD (null if not visible)\n" +
-                    "- \"category\": one of [" + CATEGORIES + "]\n" +
-                    "- \"currency\": 3-letter ISO code (null if not visible)\n" +
-                    "Return ONLY the JSON object, no other text.";
-
             String dataUrl = "data:" + mimeType + ";base64," + base64Image;
-            String json = extractJson(callGroqVision(dataUrl, textPrompt, 300));
-            ParsedExpenseResponse result = objectMapper.readValue(json, ParsedExpenseResponse.class);
-            if (result.getDate() == null) result.setDate(today.toString());
-            if (result.getCategory() == null || !VALID_CATEGORIES.contains(result.getCategory())) {
-                result.setCategory("General");
-            }
-            return result;
+            return parseReceipt(extractContent(
+                    groqClient.complete(Operation.SCAN_RECEIPT, visionBody(dataUrl, RECEIPT_PROMPT, 300))), today);
         } catch (Exception e) {
             log.warn("Error scanning receipt: {}", e.getMessage());
             return new ParsedExpenseResponse(null, null, today.toString(), "General", null);
         }
     }
 
+    /**
+     * Same as {@link #scanReceipt(String, String, LocalDate)} for an uploaded photo, which is read and
+     * base64-encoded while the request to Groq is being sent instead of being held in memory.
+     */
+    public ParsedExpenseResponse scanReceipt(GroqClient.ImageUpload image, LocalDate today) {
+        if (!isConfigured()) return new ParsedExpenseResponse(null, null, today.toString(), "General", null);
+        try {
+            Map<String, Object> body = visionBody(GroqClient.IMAGE_URL, RECEIPT_PROMPT, 300);
+            return parseReceipt(extractContent(groqClient.complete(Operation.SCAN_RECEIPT, body, image)), today);
+        } catch (Exception e) {
+            log.warn("Error scanning receipt: {}", e.getMessage());
+            return new ParsedExpenseResponse(null, null, today.toString(), "General", null);
+        }
+    }
+
+    private ParsedExpenseResponse parseReceipt(String content, LocalDate today) throws IOException {
+        ParsedExpenseResponse result = objectMapper.readValue(extractJson(content), ParsedExpenseResponse.class);
+        if (result.getDate() == null) result.setDate(today.toString());
+        if (result.getCategory() == null || !VALID_CATEGORIES.contains(result.getCategory())) {
+            result.setCategory("General");
+        }
+        return result;
+    }
+
     // ── AI insights ────────────────────────────────────────────────────────────
 
-    public List<InsightDto> getInsights(String spendingContext, Long userId) {
+    public List<InsightDto> getInsights(String spendingContext) {
         if (!isConfigured()) return List.of();
-        InsightsCacheEntry cached = insightsCache.get(userId);
-        if (cached != null && cached.isFresh()) {
-            log.debug("Returning cached insights for user {}", userId);
-            return cached.data();
-        }
         try {
             String prompt = "Analyze this user's spending and generate 3 personalized financial insights.\n\n" +
                     "Spending data:\n" + spendingContext + "\n\n" +
@@ -199,14 +281,12 @@ public class AiService {
                     "Example: {\"insights\":[{\"type\":\"tip\",\"title\":\"Reduce delivery spend\",\"message\":\"You spend €120/month on delivery. Cooking twice more weekly could save €40.\",\"icon\":\"bulb-outline\"}]}\n" +
                     "Return ONLY the JSON object.";
 
-            String json = extractJson(callGroqText(prompt, groqModel, 600));
+            String json = extractJson(callGroqText(Operation.INSIGHTS, prompt, groqModel, 600));
             Map<String, Object> wrapper = objectMapper.readValue(json, new TypeReference<>() {});
             Object insightsRaw = wrapper.get("insights");
             if (insightsRaw == null) return List.of();
             String insightsJson = objectMapper.writeValueAsString(insightsRaw);
-            List<InsightDto> result = objectMapper.readValue(insightsJson, new TypeReference<List<InsightDto>>() {});
-            insightsCache.put(userId, new InsightsCacheEntry(result, System.currentTimeMillis()));
-            return result;
+            return objectMapper.readValue(insightsJson, new TypeReference<List<InsightDto>>() {});
         } catch (Exception e) {
             log.warn("Error generating insights: {}", e.getMessage());
             return List.of();
@@ -228,7 +308,7 @@ public class AiService {
                     "Only include top 5 categories by spend. Return ONLY the JSON object.\n" +
                     "Example: {\"advice\":[{\"category\":\"Food\",\"currentMonthlySpend\":450,\"suggestedBudget\":380,\"reason\":\"Reducing dining out twice a week could save €70/month.\"}]}";
 
-            String json = extractJson(callGroqText(prompt, groqModel, 600));
+            String json = extractJson(callGroqText(Operation.BUDGET_ADVICE, prompt, groqModel, 600));
             Map<String, Object> wrapper = objectMapper.readValue(json, new TypeReference<>() {});
             Object adviceRaw = wrapper.get("advice");
             if (adviceRaw == null) return List.of();
@@ -258,7 +338,7 @@ public class AiService {
                     "\"freelance 800 euros\" -> {\"description\":\"Freelance Payment\",\"amount\":800.0,\"date\":\"" + today + "\",\"category\":\"NetSales\",\"currency\":\"EUR\"}\n" +
                     "Return ONLY the JSON object.";
 
-            String json = extractJson(callGroqText(prompt, groqModel, 200));
+            String json = extractJson(callGroqText(Operation.PARSE_INCOME, prompt, groqModel, 200));
             ParsedExpenseResponse result = objectMapper.readValue(json, ParsedExpenseResponse.class);
             if (result.getDate() == null) result.setDate(today.toString());
             if (result.getCategory() == null) result.setCategory("Salary");
@@ -271,30 +351,50 @@ public class AiService {
 
     // ── Private helpers ────────────────────────────────────────────────────────
 
-    private String callGroqText(String prompt, String model, int maxTokens) {
-        return callGroqMessages(
+    private String callGroqText(Operation operation, String prompt, String model, int maxTokens) throws IOException {
+        return callGroqMessages(operation,
                 new ArrayList<>(List.of(Map.of("role", "user", "content", prompt))),
                 model, maxTokens, 0.2);
     }
 
-    @SuppressWarnings("unchecked")
-    private String callGroqMessages(List<Map<String, Object>> messages, String model, int maxTokens, double temperature) {
+    private String callGroqMessages(Operation operation, List<Map<String, Object>> messages, String model,
+                                    int maxTokens, double temperature) throws IOException {
+        Map<String, Object> body = groqBody(messages, model, maxTokens, temperature);
+        if (!CACHED_OPERATIONS.contains(operation)) {
+            return extractContent(groqClient.complete(operation, body));
+        }
+        String key = responseCache.key(operation, body);
+        String cached = responseCache.get(key);
+        if (cached != null) return cached;
+        String content = extractContent(groqClient.complete(operation, body));
+        // All cached operations answer with a JSON object; anything else is worth asking for again
+        if (isJsonObject(extractJson(content))) {
+            responseCache.put(key, content);
+        }
+        return content;
+    }
+
+    private boolean isJsonObject(String json) {
+        try {
+            return objectMapper.readTree(json).isObject();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private Map<String, Object> groqBody(List<Map<String, Object>> messages, String model,
+                                         int maxTokens, double temperature) {
         Map<String, Object> body = new HashMap<>();
         body.put("model", model);
         body.put("messages", messages);
         body.put("temperature", temperature);
         body.put("max_tokens", maxTokens);
-
-        HttpEntity<Map<String, Object>> request = new HttpEntity<>(body, buildHeaders());
-        ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
-                groqApiUrl, HttpMethod.POST, request, (Class<Map<String, Object>>) (Class<?>) Map.class);
-        return extractContent(response.getBody());
+        return body;
     }
 
-    @SuppressWarnings("unchecked")
-    private String callGroqVision(String imageDataUrl, String textPrompt, int maxTokens) {
+    private Map<String, Object> visionBody(String imageUrl, String textPrompt, int maxTokens) {
         List<Map<String, Object>> content = List.of(
-                Map.of("type", "image_url", "image_url", Map.of("url", imageDataUrl)),
+                Map.of("type", "image_url", "image_url", Map.of("url", imageUrl)),
                 Map.of("type", "text", "text", textPrompt)
         );
         Map<String, Object> body = new HashMap<>();
@@ -302,22 +402,11 @@ public class AiService {
         body.put("messages", List.of(Map.of("role", "user", "content", content)));
         body.put("temperature", 0.1);
         body.put("max_tokens", maxTokens);
-
-        HttpEntity<Map<String, Object>> request = new HttpEntity<>(body, buildHeaders());
-        ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
-                groqApiUrl, HttpMethod.POST, request, (Class<Map<String, Object>>) (Class<?>) Map.class);
-        return extractContent(response.getBody());
+        return body;
     }
 
     private boolean isConfigured() {
-        return groqApiKey != null && !groqApiKey.isBlank();
-    }
-
-    private HttpHeaders buildHeaders() {
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        headers.setBearerAuth(groqApiKey);
-        return headers;
+        return groqClient.isConfigured();
     }
 
     @SuppressWarnings("unchecked")
@@ -0,0 +1,148 @@
+package com.leozara.cashwise.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.leozara.cashwise.service.GroqClient.Operation;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.net.http.HttpTimeoutException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics for every Groq call, all tagged by {@code operation} and {@code model}:
+ * <ul>
+ *   <li>{@code ai.groq.latency}: timer with percentile histogram, also tagged {@code outcome} = success | error</li>
+ *   <li>{@code ai.groq.errors}: counter tagged {@code kind} = timeout | rate_limited | server_error |
+ *       client_error | io | circuit_open | saturated</li>
+ *   <li>{@code ai.prompt.tokens} and {@code ai.completion.tokens}: distributions of the {@code usage} Groq reports</li>
+ * </ul>
+ * Token usage is also summed per household, for the calling user's household (calls made without a
+ * logged-in user, such as background categorization, are not attributed). Households are not metric
+ * tags, which would create a time series per tenant; the heaviest ones are listed by the
+ * {@code /actuator/aiusage} endpoint instead ({@link AiUsageEndpoint}).
+ */
+@Component
+public class AiTelemetry {
+
+    /** Running totals for one household since startup (or since it was last evicted). */
+    public static final class HouseholdUsage {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder promptTokens = new LongAdder();
+        private final LongAdder completionTokens = new LongAdder();
+
+        public long getCalls() {
+            return calls.sum();
+        }
+
+        public long getPromptTokens() {
+            return promptTokens.sum();
+        }
+
+        public long getCompletionTokens() {
+            return completionTokens.sum();
+        }
+
+        long totalTokens() {
+            return promptTokens.sum() + completionTokens.sum();
+        }
+    }
+
+    public record HouseholdUsageView(Long householdId, long calls, long promptTokens, long completionTokens) {}
+
+    private final MeterRegistry meterRegistry;
+    private final HouseholdMembershipResolver memberships;
+    private final Cache<Long, HouseholdUsage> households;
+
+    public AiTelemetry(MeterRegistry meterRegistry,
+                       HouseholdMembershipResolver memberships,
+                       @Value("${app.ai-usage.max-households:10000}") long maxHouseholds) {
+        this.meterRegistry = meterRegistry;
+        this.memberships = memberships;
+        this.households = Caffeine.newBuilder().maximumSize(maxHouseholds).build();
+    }
+
+    /** Household of the user the current request is authenticated as, or null. */
+    Long currentHousehold() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !(auth.getPrincipal() instanceof Long userId)) return null;
+        return memberships.findHouseholdId(userId);
+    }
+
+    /** A call that reached Groq; {@code failure} is null when it succeeded. */
+    void recordCall(Operation operation, String model, long elapsedNanos, Throwable failure) {
+        Timer.builder("ai.groq.latency")
+                .description("Groq call duration, including the whole body for streamed answers")
+                .tag("operation", tag(operation))
+                .tag("model", model)
+                .tag("outcome", failure == null ? "success" : "error")
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+        if (failure != null) recordError(operation, model, failure);
+    }
+
+    /** A failed call, whether or not it reached Groq. */
+    void recordError(Operation operation, String model, Throwable failure) {
+        meterRegistry.counter("ai.groq.errors",
+                "operation", tag(operation), "model", model, "kind", kind(failure)).increment();
+    }
+
+    /** Records the {@code usage} block of a completion, if there is one. */
+    void recordUsage(Operation operation, String model, Long householdId, Object usage) {
+        if (!(usage instanceof Map<?, ?> counts)) return;
+        long prompt = counts.get("prompt_tokens") instanceof Number n ? n.longValue() : 0;
+        long completion = counts.get("completion_tokens") instanceof Number n ? n.longValue() : 0;
+        tokens("ai.prompt.tokens", operation, model).record(prompt);
+        tokens("ai.completion.tokens", operation, model).record(completion);
+        if (householdId != null) {
+            HouseholdUsage household = households.get(householdId, id -> new HouseholdUsage());
+            household.calls.increment();
+            household.promptTokens.add(prompt);
+            household.completionTokens.add(completion);
+        }
+    }
+
+    /** The households that used the most tokens, heaviest first. */
+    public List<HouseholdUsageView> topHouseholds(int limit) {
+        return households.asMap().entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<Long, HouseholdUsage> e) -> e.getValue().totalTokens()).reversed())
+                .limit(limit)
+                .map(e -> new HouseholdUsageView(e.getKey(), e.getValue().getCalls(),
+                        e.getValue().getPromptTokens(), e.getValue().getCompletionTokens()))
+                .toList();
+    }
+
+    private DistributionSummary tokens(String name, Operation operation, String model) {
+        return DistributionSummary.builder(name)
+                .baseUnit("tokens")
+                .tag("operation", tag(operation))
+                .tag("model", model)
+                .register(meterRegistry);
+    }
+
+    private static String tag(Operation operation) {
+        return operation.name().toLowerCase(Locale.ROOT);
+    }
+
+    private static String kind(Throwable failure) {
+        if (failure instanceof HttpTimeoutException) return "timeout";
+        if (failure instanceof GroqCircuitBreakers.CircuitOpenException) return "circuit_open";
+        if (failure instanceof GroqClient.SaturatedException) return "saturated";
+        if (failure instanceof GroqClient.UpstreamException upstream) {
+            if (upstream.getStatus() == 429) return "rate_limited";
+            return upstream.getStatus() >= 500 ? "server_error" : "client_error";
+        }
+        return "io";
+    }
+}
@@ -0,0 +1,28 @@
+package com.leozara.cashwise.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * {@code /actuator/aiusage}: the households that used the most Groq tokens since startup. This
+ * crosses tenants, so like every actuator endpoint it is only served on the management port
+ * ({@code management.server.port}), which is not reachable from outside the host by default.
+ */
+@Component
+@Endpoint(id = "aiusage")
+@RequiredArgsConstructor
+public class AiUsageEndpoint {
+
+    private static final int TOP_HOUSEHOLDS = 50;
+
+    private final AiTelemetry telemetry;
+
+    @ReadOperation
+    public List<AiTelemetry.HouseholdUsageView> topHouseholds() {
+        return telemetry.topHouseholds(TOP_HOUSEHOLDS);
+    }
+}
@@ -0,0 +1,91 @@
+package com.leozara.cashwise.service;
+
+import com.leozara.cashwise.dto.AnalyticsSummaryResponse;
+import com.leozara.cashwise.dto.MonthlyTotalDto;
+import com.leozara.cashwise.model.MonthlyRollup;
+import com.leozara.cashwise.repository.ExpenseRepository;
+import com.leozara.cashwise.repository.IncomeRepository;
+import com.leozara.cashwise.repository.MonthlyRollupRepository;
+import com.leozara.cashwise.repository.MonthlyTotalView;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Household totals grouped by month, category and currency, computed in the database so callers
+ * never have to load individual entries just to sum them.
+ *
+ * <p>Whole calendar months are read from {@code monthly_rollups}; only a partial month at either end
+ * of the range (typically the current one) is aggregated from the raw rows.
+ */
+@Service
+@RequiredArgsConstructor
+public class AnalyticsService {
+
+    private static final Comparator<MonthlyTotalDto> ORDER = Comparator
+            .comparing(MonthlyTotalDto::getMonth)
+            .thenComparing(MonthlyTotalDto::getCategory)
+            .thenComparing(MonthlyTotalDto::getCurrency);
+
+    private final ExpenseRepository expenseRepository;
+    private final IncomeRepository incomeRepository;
+    private final MonthlyRollupRepository rollupRepository;
+    private final MonthlyRollupService rollupService;
+    private final HouseholdMembershipResolver memberships;
+
+    @Transactional(readOnly = true)
+    public AnalyticsSummaryResponse getSummary(Long userId, LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("'from' must not be after 'to'");
+        }
+        Long householdId = memberships.getHouseholdId(userId);
+        return new AnalyticsSummaryResponse(from, to,
+                totals(householdId, MonthlyRollup.EXPENSE, from, to),
+                totals(householdId, MonthlyRollup.INCOME, from, to));
+    }
+
+    /** Recomputes the caller's household rollups from its raw entries. */
+    public void rebuildRollups(Long userId) {
+        rollupService.rebuild(memberships.getHouseholdId(userId));
+    }
+
+    private List<MonthlyTotalDto> totals(Long householdId, String kind, LocalDate from, LocalDate to) {
+        LocalDate firstWholeMonth = from.getDayOfMonth() == 1 ? from : from.plusMonths(1).withDayOfMonth(1);
+        LocalDate lastWholeMonth = to.equals(to.withDayOfMonth(to.lengthOfMonth()))
+                ? to.withDayOfMonth(1) : to.withDayOfMonth(1).minusMonths(1);
+
+        if (firstWholeMonth.isAfter(lastWholeMonth)) {
+            return toDtos(raw(householdId, kind, from, to));
+        }
+
+        List<MonthlyTotalDto> totals = new ArrayList<>(
+                toDtos(rollupRepository.findTotals(householdId, kind, firstWholeMonth, lastWholeMonth)));
+        if (from.isBefore(firstWholeMonth)) {
+            totals.addAll(toDtos(raw(householdId, kind, from, firstWholeMonth.minusDays(1))));
+        }
+        LocalDate afterLastWholeMonth = lastWholeMonth.plusMonths(1);
+        if (!to.isBefore(afterLastWholeMonth)) {
+            totals.addAll(toDtos(raw(householdId, kind, afterLastWholeMonth, to)));
+        }
+        totals.sort(ORDER);
+        return totals;
+    }
+
+    private List<MonthlyTotalView> raw(Long householdId, String kind, LocalDate from, LocalDate to) {
+        return MonthlyRollup.EXPENSE.equals(kind)
+                ? expenseRepository.sumByMonthCategoryCurrency(householdId, from, to)
+                : incomeRepository.sumByMonthCategoryCurrency(householdId, from, to);
+    }
+
+    private List<MonthlyTotalDto> toDtos(List<MonthlyTotalView> rows) {
+        return rows.stream()
+                .map(r -> new MonthlyTotalDto(r.getMonth(), r.getCategory(), r.getCurrency(),
+                        r.getTotal(), r.getEntries()))
+                .toList();
+    }
+}
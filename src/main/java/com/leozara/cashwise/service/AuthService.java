@@ -7,6 +7,7 @@ import com.leozara.cashwise.repository.ExpenseRepository;
 import com.leozara.cashwise.repository.IncomeRepository;
 import com.leozara.cashwise.repository.PasswordResetTokenRepository;
 import com.leozara.cashwise.repository.SubscriptionRepository;
+import com.leozara.cashwise.repository.SyncTombstoneRepository;
 import com.leozara.cashwise.repository.UserRepository;
 import com.leozara.cashwise.security.JwtService;
 import lombok.RequiredArgsConstructor;
@@ -32,6 +33,9 @@ public class AuthService {
     private final PasswordEncoder passwordEncoder;
     private final JwtService jwtService;
     private final HouseholdService householdService;
+    private final MonthlyRollupService rollups;
+    private final SyncTombstoneRepository tombstoneRepository;
+    private final HouseholdDataVersions dataVersions;
 
     @Transactional
     public AuthResponse register(RegisterRequest request) {
@@ -79,6 +83,7 @@ public class AuthService {
                 .orElseThrow(() -> new IllegalArgumentException("User not found"));
         user.setName(request.getName());
         User saved = userRepository.save(user);
+        dataVersions.bumpForUser(userId); // household lists show the author's name
         return new ProfileResponse(saved.getName(), saved.getEmail(), saved.getCreatedAt());
     }
 
@@ -110,7 +115,10 @@ public class AuthService {
             throw new IllegalArgumentException("Incorrect password");
         }
 
+        dataVersions.bumpForUser(userId);
         householdService.handleAccountDeletion(userId);
+        rollups.removeAllOfUser(userId);
+        tombstoneRepository.insertForUser(userId, LocalDateTime.now());
         expenseRepository.deleteByUserId(userId);
         incomeRepository.deleteByUserId(userId);
         subscriptionRepository.deleteByUserId(userId);
@@ -0,0 +1,34 @@
+package com.leozara.cashwise.service;
+
+import com.leozara.cashwise.repository.UserRepository;
+import com.leozara.cashwise.repository.UserRepository.AuthorView;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Resolves the "added by" author of household entries in a single query per listing,
+ * instead of one user lookup per row.
+ */
+@Component
+@RequiredArgsConstructor
+public class AuthorResolver {
+
+    private final UserRepository userRepository;
+
+    public Map<Long, AuthorView> resolve(Collection<Long> userIds) {
+        Set<Long> ids = userIds.stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        if (ids.isEmpty()) return Collections.emptyMap();
+        return userRepository.findAuthorsByIdIn(ids).stream()
+                .collect(Collectors.toMap(AuthorView::getId, Function.identity()));
+    }
+}
@@ -0,0 +1,61 @@
+package com.leozara.cashwise.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Objects;
+
+/**
+ * Reads another stream as standard base64 (padded, no line breaks). The source is encoded one block
+ * at a time, so memory use stays at the two block buffers however large it is.
+ */
+final class Base64EncodingInputStream extends InputStream {
+
+    // A multiple of 3, so only the last block can need padding
+    private static final int BLOCK = 3 * 4096;
+
+    private final InputStream source;
+    private final Base64.Encoder encoder = Base64.getEncoder();
+    private final byte[] raw = new byte[BLOCK];
+    private final byte[] encoded = new byte[BLOCK / 3 * 4];
+    private int position;
+    private int limit;
+    private boolean exhausted;
+
+    Base64EncodingInputStream(InputStream source) {
+        this.source = source;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (position == limit && !fill()) return -1;
+        return encoded[position++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, b.length);
+        if (len == 0) return 0;
+        if (position == limit && !fill()) return -1;
+        int n = Math.min(len, limit - position);
+        System.arraycopy(encoded, position, b, off, n);
+        position += n;
+        return n;
+    }
+
+    private boolean fill() throws IOException {
+        if (exhausted) return false;
+        int n = source.readNBytes(raw, 0, BLOCK);
+        if (n < BLOCK) exhausted = true;
+        if (n == 0) return false;
+        position = 0;
+        limit = encoder.encode(n == BLOCK ? raw : Arrays.copyOf(raw, n), encoded);
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        source.close();
+    }
+}
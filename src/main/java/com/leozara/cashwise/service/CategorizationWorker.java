@@ -0,0 +1,143 @@
+package com.leozara.cashwise.service;
+
+import com.leozara.cashwise.model.Expense;
+import com.leozara.cashwise.repository.ExpenseRepository;
+import com.leozara.cashwise.service.MonthlyRollupService.Entry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Background categorization of expenses saved with a provisional category. Creating an expense
+ * never waits for Groq: the row is stored with {@code categoryPending} set, and once it commits its
+ * id is handed to this pool, which asks Groq and writes the category back in a short transaction.
+ * The write goes through the rollups and bumps the household's data version, so clients see the
+ * change through ETags and delta sync like any other edit.
+ *
+ * <p>The queue is bounded; ids that do not fit, were lost to a restart, or could not be categorized
+ * because Groq was unavailable stay pending and are picked up again by {@link #resubmitStale()}.
+ */
+@Slf4j
+@Component
+public class CategorizationWorker {
+
+    private final ExpenseRepository expenseRepository;
+    private final ExpenseCategorizer categorizer;
+    private final MonthlyRollupService rollups;
+    private final HouseholdDataVersions dataVersions;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolExecutor executor;
+    private final Set<Long> queued = ConcurrentHashMap.newKeySet();
+    private final long staleAfterSeconds;
+
+    public CategorizationWorker(ExpenseRepository expenseRepository,
+                                ExpenseCategorizer categorizer,
+                                MonthlyRollupService rollups,
+                                HouseholdDataVersions dataVersions,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${app.categorization.workers:4}") int workers,
+                                @Value("${app.categorization.queue-capacity:1000}") int queueCapacity,
+                                @Value("${app.categorization.stale-after-seconds:60}") long staleAfterSeconds) {
+        this.expenseRepository = expenseRepository;
+        this.categorizer = categorizer;
+        this.rollups = rollups;
+        this.dataVersions = dataVersions;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.staleAfterSeconds = staleAfterSeconds;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "categorizer-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /** Queues the expense once the current transaction commits, so the worker can see the row. */
+    public void submitAfterCommit(Long expenseId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit(expenseId);
+                }
+            });
+        } else {
+            submit(expenseId);
+        }
+    }
+
+    /** Re-queues expenses that have been pending for longer than {@code app.categorization.stale-after-seconds}. */
+    public int resubmitStale() {
+        LocalDateTime before = LocalDateTime.now().minusSeconds(staleAfterSeconds);
+        int capacity = executor.getQueue().remainingCapacity();
+        if (capacity == 0) return 0;
+        List<Long> ids = expenseRepository.findPendingIdsUpdatedBefore(before, PageRequest.of(0, capacity));
+        ids.forEach(this::submit);
+        return ids.size();
+    }
+
+    private void submit(Long expenseId) {
+        if (!queued.add(expenseId)) return;
+        try {
+            executor.execute(() -> {
+                queued.remove(expenseId);
+                categorize(expenseId);
+            });
+        } catch (RejectedExecutionException e) {
+            queued.remove(expenseId);
+            log.debug("Categorization queue full, expense {} stays pending", expenseId);
+        }
+    }
+
+    void categorize(Long expenseId) {
+        try {
+            Expense pending = expenseRepository.findById(expenseId).orElse(null);
+            if (pending == null || !pending.isCategoryPending()) return;
+            String description = pending.getDescription();
+            Optional<String> answer = categorizer.categorizeRemotely(pending.getHouseholdId(), description);
+            if (answer.isEmpty()) {
+                // Groq is unavailable; the row stays pending and the sweep tries again later
+                log.debug("No category for expense {} yet, leaving it pending", expenseId);
+                return;
+            }
+            String category = answer.get();
+
+            Boolean recategorize = transactionTemplate.execute(status -> {
+                Expense expense = expenseRepository.findPendingForUpdate(expenseId).orElse(null);
+                if (expense == null) return false; // a category set by the user meanwhile wins
+                if (!expense.getDescription().equals(description)) return true;
+                Entry before = Entry.of(expense);
+                expense.setCategory(category);
+                expense.setCategoryPending(false);
+                rollups.replace(before, Entry.of(expense));
+                dataVersions.bump(expense.getHouseholdId());
+                return false;
+            });
+            if (Boolean.TRUE.equals(recategorize)) {
+                submit(expenseId);
+            }
+        } catch (Exception e) {
+            log.warn("Background categorization of expense {} failed: {}", expenseId, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
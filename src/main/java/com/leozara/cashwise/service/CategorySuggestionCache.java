@@ -0,0 +1,107 @@
+package com.leozara.cashwise.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.leozara.cashwise.model.CategorySuggestion;
+import com.leozara.cashwise.repository.CategorySuggestionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Locale;
+
+/**
+ * Category Groq gave for a description, shared by all users: "UBER *TRIP 4431" and "uber trip" are
+ * one entry. Lookups go to a size-capped in-memory cache with a TTL first, then, when
+ * {@code app.category-cache.persist} is on, to the {@code category_suggestions} table, which keeps
+ * the answers across restarts.
+ *
+ * <p>"General" is never stored: it is also what a failed Groq call returns. Metrics:
+ * {@code ai.category_cache.requests} tagged {@code result} = hit | miss and {@code tier} = memory | table.
+ */
+@Component
+public class CategorySuggestionCache {
+
+    private static final int MAX_KEY_LENGTH = 200;
+
+    private final CategorySuggestionRepository repository;
+    private final Cache<String, String> cache;
+    private final Duration ttl;
+    private final boolean persist;
+
+    private final Counter memoryHits;
+    private final Counter tableHits;
+    private final Counter misses;
+
+    public CategorySuggestionCache(CategorySuggestionRepository repository,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${app.category-cache.max-size:50000}") long maxSize,
+                                   @Value("${app.category-cache.ttl:30d}") Duration ttl,
+                                   @Value("${app.category-cache.persist:true}") boolean persist) {
+        this.repository = repository;
+        this.ttl = ttl;
+        this.persist = persist;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+        this.memoryHits = meterRegistry.counter("ai.category_cache.requests", "result", "hit", "tier", "memory");
+        this.tableHits = meterRegistry.counter("ai.category_cache.requests", "result", "hit", "tier", "table");
+        this.misses = meterRegistry.counter("ai.category_cache.requests", "result", "miss", "tier", "none");
+        meterRegistry.gauge("ai.category_cache.size", cache, Cache::estimatedSize);
+    }
+
+    /** Lower-cased, digits and punctuation stripped, whitespace collapsed; empty when nothing is left. */
+    static String normalize(String description) {
+        if (description == null) return "";
+        String key = description.toLowerCase(Locale.ROOT)
+                .replaceAll("[^\\p{L}\\s]+", " ")
+                .replaceAll("\\s+", " ")
+                .trim();
+        return key.length() > MAX_KEY_LENGTH ? key.substring(0, MAX_KEY_LENGTH).trim() : key;
+    }
+
+    /** The cached category, or null. */
+    public String get(String description) {
+        String key = normalize(description);
+        if (key.isEmpty()) return null;
+
+        String category = cache.getIfPresent(key);
+        if (category != null) {
+            memoryHits.increment();
+            return category;
+        }
+        if (persist) {
+            category = repository.findFresh(key, LocalDateTime.now().minus(ttl))
+                    .map(CategorySuggestion::getCategory)
+                    .orElse(null);
+            if (category != null) {
+                cache.put(key, category);
+                tableHits.increment();
+                return category;
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    @Transactional
+    public void put(String description, String category) {
+        String key = normalize(description);
+        if (key.isEmpty() || category == null || "General".equals(category)) return;
+        if (category.equals(cache.getIfPresent(key))) return;
+        cache.put(key, category);
+        if (persist) {
+            repository.upsert(key, category);
+        }
+    }
+
+    @Transactional
+    public int pruneExpired() {
+        return repository.deleteOlderThan(LocalDateTime.now().minus(ttl));
+    }
+}
@@ -0,0 +1,65 @@
+package com.leozara.cashwise.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Relays a chat answer to the client as server-sent events while Groq is still generating it:
+ * a {@code token} event per content delta ({@code {"content": "..."}}), then {@code done}, or
+ * {@code error} with a user-facing message if the answer could not be completed.
+ *
+ * <p>The body is written on an async servlet dispatch. When the client disconnects the next write
+ * fails, which closes the Groq stream and cancels the upstream request.
+ */
+@Slf4j
+@Component
+public class ChatStreamer {
+
+    private final AiService aiService;
+    private final ObjectMapper objectMapper;
+
+    public ChatStreamer(AiService aiService, ObjectMapper objectMapper) {
+        this.aiService = aiService;
+        this.objectMapper = objectMapper;
+    }
+
+    public StreamingResponseBody stream(String question, String spendingContext, List<Map<String, String>> history) {
+        return out -> {
+            try {
+                aiService.streamChat(question, spendingContext, history,
+                        delta -> send(out, "token", Map.of("content", delta)));
+                send(out, "done", Map.of());
+            } catch (UncheckedIOException e) {
+                log.debug("Chat stream closed by the client: {}", e.getMessage());
+            } catch (Exception e) {
+                log.warn("Error in AI chat stream: {}", e.getMessage());
+                try {
+                    send(out, "error", Map.of("message", AiService.CHAT_ERROR));
+                } catch (UncheckedIOException ignored) {
+                    // Client already gone
+                }
+            }
+        };
+    }
+
+    /** Writes and flushes one event; a failed write is rethrown unchecked so it can cross the delta callback. */
+    private void send(OutputStream out, String event, Object data) {
+        try {
+            out.write(("event: " + event + "\ndata: ").getBytes(StandardCharsets.UTF_8));
+            out.write(objectMapper.writeValueAsBytes(data));
+            out.write("\n\n".getBytes(StandardCharsets.UTF_8));
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
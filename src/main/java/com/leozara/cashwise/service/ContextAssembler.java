@@ -0,0 +1,63 @@
+package com.leozara.cashwise.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Joins prompt sections under a token budget. Required sections are always kept in full; each
+ * optional one comes with shorter variants (the last may be empty), and while the estimate is over
+ * budget the lowest-priority section that can still shrink is stepped down to its next variant.
+ * Sections keep the order in which they were added.
+ */
+final class ContextAssembler {
+
+    private static final int REQUIRED = Integer.MAX_VALUE;
+
+    private record Section(int priority, List<String> variants) {}
+
+    private final List<Section> sections = new ArrayList<>();
+
+    /**
+     * Rough token count for English text with numbers: about four characters per token. Good enough
+     * to keep prompts bounded; Groq's {@code usage} reports the real figure.
+     */
+    static int estimateTokens(CharSequence text) {
+        return (text.length() + 3) / 4;
+    }
+
+    ContextAssembler required(String text) {
+        sections.add(new Section(REQUIRED, List.of(text)));
+        return this;
+    }
+
+    /** A section that may be shortened; {@code variants} go from the full text to the most compact. */
+    ContextAssembler optional(int priority, String... variants) {
+        sections.add(new Section(priority, List.of(variants)));
+        return this;
+    }
+
+    String assemble(int maxTokens) {
+        int[] chosen = new int[sections.size()];
+        int tokens = 0;
+        for (Section section : sections) tokens += estimateTokens(section.variants().get(0));
+
+        while (tokens > maxTokens) {
+            int victim = -1;
+            for (int i = 0; i < sections.size(); i++) {
+                Section section = sections.get(i);
+                if (section.priority() == REQUIRED || chosen[i] == section.variants().size() - 1) continue;
+                if (victim < 0 || section.priority() <= sections.get(victim).priority()) victim = i;
+            }
+            if (victim < 0) break;
+            List<String> variants = sections.get(victim).variants();
+            tokens -= estimateTokens(variants.get(chosen[victim]));
+            tokens += estimateTokens(variants.get(++chosen[victim]));
+        }
+
+        StringBuilder sb = new StringBuilder(tokens * 4);
+        for (int i = 0; i < sections.size(); i++) {
+            sb.append(sections.get(i).variants().get(chosen[i]));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,337 @@
+package com.leozara.cashwise.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.leozara.cashwise.repository.CategorizedDescriptionView;
+import com.leozara.cashwise.repository.ExpenseRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Picks a category for an expense description without a network call when it can. Each household
+ * gets a token model trained on its own categorized expenses, on top of a built-in vocabulary for
+ * the categories Groq may return. When the best guess scores below
+ * {@code app.categorizer.confidence-threshold}, the shared {@link CategorySuggestionCache} is tried,
+ * and only then is the description sent to {@link AiService}.
+ *
+ * <p>Models are built from the latest {@code app.categorizer.history-size} expenses on first use and
+ * then learn from every committed expense, so new merchants stop going to the LLM after a couple of
+ * occurrences. Metrics: {@code ai.categorizer.requests} (tag {@code source} = local | cache | llm) gives the
+ * hit rate, {@code ai.categorizer.accuracy} (tag {@code outcome}) scores confident local guesses
+ * against the categories users pick themselves.
+ */
+@Component
+public class ExpenseCategorizer {
+
+    private static final String FALLBACK_CATEGORY = "General";
+    private static final double SEED_WEIGHT = 1.0;
+    private static final double PHRASE_WEIGHT = 2.0;
+    /** Added to the denominator so a single weak hit is never fully confident. */
+    private static final double SMOOTHING = 0.5;
+
+    private static final Map<String, String> SEED_VOCABULARY = new HashMap<>();
+
+    static {
+        seed("Groceries", "grocery", "groceries", "supermarket", "market", "aldi", "lidl", "carrefour", "tesco",
+                "walmart", "continente", "mercadona", "mercado", "supermercado", "feira", "hortifruti");
+        seed("Restaurants", "restaurant", "restaurante", "dinner", "lunch", "brunch", "bistro", "steakhouse",
+                "sushi", "pizzeria", "jantar", "almoco", "churrascaria", "tasca");
+        seed("Food", "food", "coffee", "cafe", "bakery", "snack", "breakfast", "starbucks", "mcdonalds", "burger",
+                "pizza", "comida", "padaria", "lanche", "pastelaria", "cafeteria", "acai");
+        seed("Delivery", "delivery", "ubereats", "deliveroo", "glovo", "doordash", "ifood", "rappi", "eats",
+                "takeaway", "entrega");
+        seed("Transport", "uber", "bolt", "taxi", "cab", "bus", "metro", "subway", "train", "fuel", "gas", "petrol",
+                "parking", "toll", "lyft", "cabify", "onibus", "comboio", "gasolina", "combustivel",
+                "estacionamento", "pedagio", "portagem", "bilhete");
+        seed("Travel", "flight", "airline", "hotel", "airbnb", "booking", "hostel", "ryanair", "easyjet",
+                "voo", "viagem", "passagem", "hospedagem", "pousada", "trip", "vacation", "ferias");
+        seed("Shopping", "amazon", "shopping", "clothes", "shoes", "zara", "primark", "ikea", "shein", "aliexpress",
+                "roupa", "roupas", "sapatos", "loja", "store", "mall", "decathlon", "fnac", "worten");
+        seed("Entertainment", "netflix", "spotify", "cinema", "movie", "movies", "concert", "game", "games",
+                "steam", "playstation", "xbox", "disney", "hbo", "theater", "teatro", "show", "bar", "pub",
+                "festa", "party", "ingresso", "ticket", "tickets");
+        seed("Health", "pharmacy", "doctor", "hospital", "clinic", "dentist", "gym", "medicine", "farmacia",
+                "medico", "clinica", "dentista", "academia", "ginasio", "remedio", "consulta", "exame", "therapy");
+        seed("Utilities", "electricity", "water", "internet", "phone", "rent", "energia", "luz", "agua",
+                "aluguel", "renda", "condominio", "vodafone", "edp");
+        seed("Services", "haircut", "barber", "laundry", "cleaning", "repair", "subscription", "service", "services",
+                "cabeleireiro", "barbearia", "lavandaria", "lavanderia", "limpeza", "conserto", "servico", "icloud",
+                "dropbox", "chatgpt");
+        seed("Insurance", "insurance", "seguro", "seguros", "allianz", "fidelidade", "axa", "mapfre", "policy");
+        seed("Cash", "atm", "cash", "withdrawal", "levantamento", "saque", "dinheiro", "multibanco");
+        seed("Transfers", "transfer", "transferencia", "pix", "mbway", "wise", "revolut", "iban");
+        seed("Donation", "donation", "charity", "donate", "doacao", "caridade", "oferta", "dizimo");
+        seed("Gift", "gift", "present", "presente", "presentes", "birthday", "aniversario", "prenda");
+        seed("Savings", "savings", "poupanca", "reserva");
+        seed("Investment", "investment", "stocks", "etf", "crypto", "bitcoin", "broker", "degiro", "trading212",
+                "investimento", "acoes", "tesouro", "cdb");
+        seed("Loan", "loan", "mortgage", "emprestimo", "financiamento", "prestacao");
+        seed("Credit", "credit", "card", "fatura", "cartao", "invoice");
+        seed("Refund", "refund", "reembolso", "estorno", "devolucao", "return");
+        seed("Cashback", "cashback");
+        seed("ChildAllowance", "allowance", "mesada", "abono");
+        seed("TopUps", "topup", "recarga", "carregamento", "reload", "prepaid");
+        seed("Wealth", "wealth", "patrimonio", "gold", "ouro");
+        seed("Salary", "salary", "salario", "payroll", "ordenado", "wage");
+        seed("NetSales", "sales", "sale", "venda", "vendas", "freelance");
+        seed("Interest", "interest", "juros", "dividend", "dividendos");
+        seed("Remittances", "remittance", "remessa", "moneygram");
+    }
+
+    private static void seed(String category, String... terms) {
+        for (String term : terms) {
+            for (String token : tokenize(term)) {
+                SEED_VOCABULARY.putIfAbsent(token, category);
+            }
+        }
+    }
+
+    private final AiService aiService;
+    private final CategorySuggestionCache suggestionCache;
+    private final ExpenseRepository expenseRepository;
+    private final HouseholdMembershipResolver memberships;
+    private final Cache<Long, TokenModel> models;
+    private final double confidenceThreshold;
+    private final int historySize;
+
+    private final Counter localAnswers;
+    private final Counter cachedAnswers;
+    private final Counter llmAnswers;
+    private final Counter correctGuesses;
+    private final Counter wrongGuesses;
+
+    public ExpenseCategorizer(AiService aiService,
+                              CategorySuggestionCache suggestionCache,
+                              ExpenseRepository expenseRepository,
+                              HouseholdMembershipResolver memberships,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.categorizer.confidence-threshold:0.6}") double confidenceThreshold,
+                              @Value("${app.categorizer.history-size:2000}") int historySize,
+                              @Value("${app.categorizer.max-households:10000}") long maxHouseholds) {
+        this.aiService = aiService;
+        this.suggestionCache = suggestionCache;
+        this.expenseRepository = expenseRepository;
+        this.memberships = memberships;
+        this.confidenceThreshold = confidenceThreshold;
+        this.historySize = historySize;
+        this.models = Caffeine.newBuilder()
+                .maximumSize(maxHouseholds)
+                .expireAfterAccess(Duration.ofHours(12))
+                .build();
+        this.localAnswers = meterRegistry.counter("ai.categorizer.requests", "source", "local");
+        this.cachedAnswers = meterRegistry.counter("ai.categorizer.requests", "source", "cache");
+        this.llmAnswers = meterRegistry.counter("ai.categorizer.requests", "source", "llm");
+        this.correctGuesses = meterRegistry.counter("ai.categorizer.accuracy", "outcome", "correct");
+        this.wrongGuesses = meterRegistry.counter("ai.categorizer.accuracy", "outcome", "incorrect");
+    }
+
+    /**
+     * Category for a new expense of the household; the LLM answer is learned once the expense commits.
+     * "General" when nothing local knows the description and Groq could not be reached.
+     */
+    public String categorize(Long householdId, String description) {
+        String local = categorizeLocally(householdId, description);
+        return local != null ? local : categorizeRemotely(householdId, description).orElse(FALLBACK_CATEGORY);
+    }
+
+    /**
+     * The household model's category if it is confident, else what Groq answered for the same
+     * normalized description before (any household), else null. Never calls Groq.
+     */
+    public String categorizeLocally(Long householdId, String description) {
+        Prediction local = model(householdId).predict(description);
+        if (local != null && local.confidence() >= confidenceThreshold) {
+            localAnswers.increment();
+            return local.category();
+        }
+        String cached = suggestionCache.get(description);
+        if (cached != null) {
+            cachedAnswers.increment();
+            learn(householdId, description, cached);
+        }
+        return cached;
+    }
+
+    /**
+     * Asks Groq, for descriptions {@link #categorizeLocally} could not answer. Empty when the call
+     * failed; nothing is cached or learned then.
+     */
+    public Optional<String> categorizeRemotely(Long householdId, String description) {
+        llmAnswers.increment();
+        Optional<String> category = aiService.suggestCategory(description);
+        category.ifPresent(answer -> {
+            suggestionCache.put(description, answer);
+            learn(householdId, description, answer);
+        });
+        return category;
+    }
+
+    /**
+     * Categories for a batch of descriptions, e.g. a bulk import. Duplicates are answered once and
+     * everything the local model is unsure about goes to Groq in as few calls as possible, so call
+     * this before opening a transaction. Descriptions Groq could not be asked about are left out.
+     */
+    public Map<String, String> categorizeAll(Long householdId, Collection<String> descriptions) {
+        Map<String, String> categories = new HashMap<>();
+        List<String> unsure = new ArrayList<>();
+        for (String description : new LinkedHashSet<>(descriptions)) {
+            String known = categorizeLocally(householdId, description);
+            if (known != null) {
+                categories.put(description, known);
+            } else {
+                unsure.add(description);
+            }
+        }
+        if (!unsure.isEmpty()) {
+            llmAnswers.increment(unsure.size());
+            aiService.suggestCategories(unsure).forEach((description, category) -> {
+                categories.put(description, category);
+                suggestionCache.put(description, category);
+                learn(householdId, description, category);
+            });
+        }
+        return categories;
+    }
+
+    public String suggestForUser(String description, Long userId) {
+        return categorize(memberships.getHouseholdId(userId), description);
+    }
+
+    /**
+     * Records a category the user chose. A confident local guess for the same description is scored
+     * against it before the model learns the pair.
+     */
+    public void observe(Long householdId, String description, String category) {
+        Prediction local = model(householdId).predict(description);
+        if (local != null && local.confidence() >= confidenceThreshold) {
+            (local.category().equals(category) ? correctGuesses : wrongGuesses).increment();
+        }
+        learn(householdId, description, category);
+    }
+
+    /** Undoes an earlier observation, e.g. when the user re-files an expense under another category. */
+    public void forget(Long householdId, String description, String category) {
+        TokenModel model = models.getIfPresent(householdId);
+        if (model != null && learnable(category)) {
+            afterCommit(() -> model.add(description, category, -1));
+        }
+    }
+
+    /**
+     * "General" is never learned, like in {@link CategorySuggestionCache}: it is the catch-all and
+     * was, before failures were told apart, also what an unreachable Groq answered, so it says
+     * nothing about the description.
+     */
+    private static boolean learnable(String category) {
+        return category != null && !FALLBACK_CATEGORY.equals(category) && AiService.VALID_CATEGORIES.contains(category);
+    }
+
+    private void learn(Long householdId, String description, String category) {
+        if (!StringUtils.hasText(description) || !learnable(category)) return;
+        TokenModel model = model(householdId);
+        afterCommit(() -> model.add(description, category, 1));
+    }
+
+    private TokenModel model(Long householdId) {
+        return models.get(householdId, this::load);
+    }
+
+    private TokenModel load(Long householdId) {
+        TokenModel model = new TokenModel();
+        for (CategorizedDescriptionView row : expenseRepository.findRecentCategorized(householdId, PageRequest.of(0, historySize))) {
+            if (learnable(row.getCategory())) {
+                model.add(row.getDescription(), row.getCategory(), 1);
+            }
+        }
+        return model;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null) return List.of();
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT);
+        List<String> tokens = new ArrayList<>();
+        for (String token : normalized.split("[^a-z0-9]+")) {
+            if (token.length() >= 2 && !token.chars().allMatch(Character::isDigit)) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    record Prediction(String category, double confidence) {}
+
+    /**
+     * Counts of categories per token and per whole description (tokens joined, so "Uber 12/03" and
+     * "uber" are the same phrase). Counts only go down through {@link ExpenseCategorizer#forget}.
+     */
+    static final class TokenModel {
+
+        private final Map<String, Map<String, Integer>> tokens = new HashMap<>();
+        private final Map<String, Map<String, Integer>> phrases = new HashMap<>();
+
+        synchronized void add(String description, String category, int delta) {
+            List<String> words = tokenize(description);
+            if (words.isEmpty()) return;
+            adjust(phrases, String.join(" ", words), category, delta);
+            for (String word : new LinkedHashSet<>(words)) {
+                adjust(tokens, word, category, delta);
+            }
+        }
+
+        synchronized Prediction predict(String description) {
+            List<String> words = tokenize(description);
+            if (words.isEmpty()) return null;
+
+            Map<String, Double> scores = new HashMap<>();
+            score(scores, phrases.get(String.join(" ", words)), PHRASE_WEIGHT);
+            for (String word : new LinkedHashSet<>(words)) {
+                score(scores, tokens.get(word), 1.0);
+                String seeded = SEED_VOCABULARY.get(word);
+                if (seeded != null) scores.merge(seeded, SEED_WEIGHT, Double::sum);
+            }
+            if (scores.isEmpty()) return null;
+
+            Map.Entry<String, Double> best = Collections.max(scores.entrySet(), Map.Entry.comparingByValue());
+            double total = scores.values().stream().mapToDouble(Double::doubleValue).sum();
+            return new Prediction(best.getKey(), best.getValue() / (total + SMOOTHING));
+        }
+
+        /** Each source adds its category shares, damped so one sighting weighs half as much as many. */
+        private static void score(Map<String, Double> scores, Map<String, Integer> counts, double weight) {
+            if (counts == null) return;
+            int seen = counts.values().stream().mapToInt(Integer::intValue).sum();
+            counts.forEach((category, n) -> scores.merge(category, weight * n / (seen + 1), Double::sum));
+        }
+
+        private static void adjust(Map<String, Map<String, Integer>> index, String key, String category, int delta) {
+            Map<String, Integer> counts = index.computeIfAbsent(key, k -> new HashMap<>());
+            if (counts.merge(category, delta, Integer::sum) <= 0) counts.remove(category);
+            if (counts.isEmpty()) index.remove(key);
+        }
+    }
+}
@@ -1,45 +1,65 @@
 package com.leozara.cashwise.service;
 
+import com.leozara.cashwise.dto.CursorPage;
 import com.leozara.cashwise.dto.ExpenseCreateRequest;
 import com.leozara.cashwise.dto.ExpenseResponse;
 import com.leozara.cashwise.dto.ExpenseUpdateRequest;
 import com.leozara.cashwise.exception.ResourceNotFoundException;
 import com.leozara.cashwise.model.Expense;
-import com.leozara.cashwise.model.HouseholdMember;
-import com.leozara.cashwise.model.User;
+import com.leozara.cashwise.model.SyncTombstone;
 import com.leozara.cashwise.repository.ExpenseRepository;
-import com.leozara.cashwise.repository.HouseholdMemberRepository;
-import com.leozara.cashwise.repository.UserRepository;
+import com.leozara.cashwise.repository.SyncTombstoneRepository;
+import com.leozara.cashwise.repository.UserRepository.AuthorView;
+import com.leozara.cashwise.service.MonthlyRollupService.Entry;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class ExpenseService {
 
+    private static final String PROVISIONAL_CATEGORY = "General";
+
     private final ExpenseRepository expenseRepository;
-    private final HouseholdMemberRepository memberRepository;
-    private final UserRepository userRepository;
-    private final AiService aiService;
+    private final HouseholdMembershipResolver memberships;
+    private final AuthorResolver authorResolver;
+    private final HouseholdListStreamer listStreamer;
+    private final MonthlyRollupService rollups;
+    private final SyncTombstoneRepository tombstoneRepository;
+    private final HouseholdDataVersions dataVersions;
+    private final ExpenseCategorizer categorizer;
+    private final CategorizationWorker categorizationWorker;
+    private final TransactionTemplate transactionTemplate;
 
-    private Long getHouseholdId(Long userId) {
-        return memberRepository.findByUserId(userId)
-                .orElseThrow(() -> new IllegalStateException("You are not part of any household"))
-                .getHouseholdId();
+    private ExpenseResponse toResponse(Expense expense) {
+        return toResponses(List.of(expense)).get(0);
     }
 
-    private ExpenseResponse toResponse(Expense expense) {
+    private List<ExpenseResponse> toResponses(List<Expense> expenses) {
+        Map<Long, AuthorView> authors = authorResolver.resolve(
+                expenses.stream().map(Expense::getUserId).toList());
+        return expenses.stream()
+                .map(e -> toResponse(e, authors.get(e.getUserId())))
+                .collect(Collectors.toList());
+    }
+
+    private ExpenseResponse toResponse(Expense expense, AuthorView author) {
         ExpenseResponse resp = new ExpenseResponse();
         resp.setId(expense.getId());
         resp.setDescription(expense.getDescription());
@@ -47,59 +67,94 @@ public class ExpenseService {
         resp.setCurrency(expense.getCurrency());
         resp.setDate(expense.getDate());
         resp.setCategory(expense.getCategory());
+        resp.setCategoryPending(expense.isCategoryPending());
         resp.setGroupId(expense.getGroupId());
         resp.setUserId(expense.getUserId());
         resp.setHouseholdId(expense.getHouseholdId());
         resp.setCreatedAt(expense.getCreatedAt());
-        userRepository.findById(expense.getUserId()).ifPresent(u -> {
-            resp.setAddedByName(u.getName());
-            resp.setAddedByUsername(u.getUsername());
-        });
-        return resp;
-    }
-
-    private void checkCanEdit(Long currentUserId, Expense expense) {
-        HouseholdMember member = memberRepository.findByUserId(currentUserId)
-                .orElseThrow(() -> new AccessDeniedException("Not a household member"));
-        if (!"OWNER".equals(member.getRole()) && !currentUserId.equals(expense.getUserId())) {
-            throw new AccessDeniedException("You can only modify your own entries");
+        resp.setUpdatedAt(expense.getUpdatedAt());
+        if (author != null) {
+            resp.setAddedByName(author.getName());
+            resp.setAddedByUsername(author.getUsername());
         }
+        return resp;
     }
 
     @Transactional
     public ExpenseResponse createExpense(ExpenseCreateRequest request, Long userId) {
         Expense expense = buildNewExpense(request, userId);
-        ExpenseResponse response = toResponse(expenseRepository.save(expense));
-        aiService.invalidateInsightsCache(userId);
-        return response;
+        Expense saved = expenseRepository.save(expense);
+        rollups.add(Entry.of(saved));
+        dataVersions.bump(saved.getHouseholdId());
+        if (saved.isCategoryPending()) {
+            categorizationWorker.submitAfterCommit(saved.getId());
+        }
+        return toResponse(saved);
     }
 
-    @Transactional
+    /**
+     * Items without a category are categorized first, in batched Groq calls, so the transaction that
+     * inserts the rows is not held open across network round trips.
+     */
     public List<ExpenseResponse> createExpenses(List<ExpenseCreateRequest> requests, Long userId) {
-        List<ExpenseResponse> results = new ArrayList<>(requests.size());
-        for (ExpenseCreateRequest request : requests) {
-            results.add(toResponse(expenseRepository.save(buildNewExpense(request, userId))));
-        }
-        aiService.invalidateInsightsCache(userId);
-        return results;
+        Long householdId = memberships.getHouseholdId(userId);
+        Map<String, String> suggestedCategories = categorizer.categorizeAll(householdId, requests.stream()
+                .filter(r -> !StringUtils.hasText(r.getCategory()))
+                .map(ExpenseCreateRequest::getDescription)
+                .toList());
+
+        return transactionTemplate.execute(status -> {
+            List<Expense> entries = new ArrayList<>(requests.size());
+            for (ExpenseCreateRequest request : requests) {
+                entries.add(buildNewExpense(request, userId, householdId, suggestedCategories));
+            }
+            List<Expense> saved = expenseRepository.saveAll(entries);
+            rollups.add(saved.stream().map(Entry::of).toList());
+            dataVersions.bump(householdId);
+            // Items Groq could not categorize just now are retried in the background
+            saved.stream().filter(Expense::isCategoryPending)
+                    .forEach(expense -> categorizationWorker.submitAfterCommit(expense.getId()));
+            return toResponses(saved);
+        });
     }
 
     public List<ExpenseResponse> getAllExpenses(Long userId) {
-        Long householdId = getHouseholdId(userId);
-        return expenseRepository.findByHouseholdId(householdId).stream()
-                .map(this::toResponse).collect(Collectors.toList());
+        Long householdId = memberships.getHouseholdId(userId);
+        return toResponses(expenseRepository.findByHouseholdId(householdId));
+    }
+
+    /** Same content as {@link #getAllExpenses(Long)}, written to the response without materializing the list. */
+    public StreamingResponseBody streamAllExpenses(Long userId) {
+        Long householdId = memberships.getHouseholdId(userId);
+        return listStreamer.stream(() -> expenseRepository.streamByHouseholdId(householdId), this::toResponses);
     }
 
     public Page<ExpenseResponse> getAllExpenses(Long userId, Pageable pageable) {
-        Long householdId = getHouseholdId(userId);
+        Long householdId = memberships.getHouseholdId(userId);
         Page<Expense> page = expenseRepository.findByHouseholdId(householdId, pageable);
-        List<ExpenseResponse> content = page.getContent().stream()
-                .map(this::toResponse).collect(Collectors.toList());
-        return new PageImpl<>(content, pageable, page.getTotalElements());
+        return new PageImpl<>(toResponses(page.getContent()), pageable, page.getTotalElements());
+    }
+
+    /** Keyset page ordered by (date, id) descending; no total count is computed. */
+    public CursorPage<ExpenseResponse> getExpensesAfter(Long userId, String cursor, int size) {
+        Long householdId = memberships.getHouseholdId(userId);
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<Expense> rows = after == null
+                ? expenseRepository.findKeysetFirstPage(householdId, limit)
+                : expenseRepository.findKeysetPageAfter(householdId, after.dateKey(), after.id(), limit);
+
+        String next = null;
+        if (rows.size() > size) {
+            rows = rows.subList(0, size);
+            Expense last = rows.get(size - 1);
+            next = KeysetCursor.of(last.getDate(), last.getId()).encode();
+        }
+        return new CursorPage<>(toResponses(rows), next);
     }
 
     public ExpenseResponse getExpenseById(Long id, Long userId) {
-        Long householdId = getHouseholdId(userId);
+        Long householdId = memberships.getHouseholdId(userId);
         Expense expense = expenseRepository.findByIdAndHouseholdId(id, householdId)
                 .orElseThrow(() -> new ResourceNotFoundException("Expense not found with ID: " + id));
         return toResponse(expense);
@@ -107,10 +162,14 @@ public class ExpenseService {
 
     @Transactional
     public ExpenseResponse updateExpense(Long id, ExpenseUpdateRequest expenseDetails, Long userId) {
-        Long householdId = getHouseholdId(userId);
-        Expense expense = expenseRepository.findByIdAndHouseholdId(id, householdId)
+        Long householdId = memberships.getHouseholdId(userId);
+        Expense expense = expenseRepository.findByIdAndHouseholdIdForUpdate(id, householdId)
                 .orElseThrow(() -> new ResourceNotFoundException("Expense not found with ID: " + id));
-        checkCanEdit(userId, expense);
+        memberships.checkCanEdit(userId, expense.getUserId());
+        Entry before = Entry.of(expense);
+        String previousDescription = expense.getDescription();
+        String previousCategory = expense.getCategory();
+        boolean wasPending = expense.isCategoryPending();
 
         expense.setDescription(expenseDetails.getDescription());
         expense.setAmount(expenseDetails.getAmount());
@@ -118,52 +177,68 @@ public class ExpenseService {
         expense.setDate(expenseDetails.getDate());
         if (StringUtils.hasText(expenseDetails.getCategory())) {
             expense.setCategory(expenseDetails.getCategory());
+            expense.setCategoryPending(false);
+        }
+        if (!Objects.equals(expense.getCategory(), previousCategory)
+                || !Objects.equals(expense.getDescription(), previousDescription)) {
+            // A provisional category is no label to learn from
+            if (!wasPending) categorizer.forget(householdId, previousDescription, previousCategory);
+            if (!expense.isCategoryPending()) categorizer.observe(householdId, expense.getDescription(), expense.getCategory());
         }
         if (expenseDetails.getGroupId() != null) {
             expense.setGroupId(StringUtils.hasText(expenseDetails.getGroupId()) ? expenseDetails.getGroupId() : null);
         }
 
-        ExpenseResponse response = toResponse(expenseRepository.save(expense));
-        aiService.invalidateInsightsCache(userId);
-        return response;
+        Expense saved = expenseRepository.save(expense);
+        rollups.replace(before, Entry.of(saved));
+        dataVersions.bump(householdId);
+        return toResponse(saved);
     }
 
     @Transactional
     public void deleteExpense(Long id, Long userId) {
-        Long householdId = getHouseholdId(userId);
-        Expense expense = expenseRepository.findByIdAndHouseholdId(id, householdId)
+        Long householdId = memberships.getHouseholdId(userId);
+        Expense expense = expenseRepository.findByIdAndHouseholdIdForUpdate(id, householdId)
                 .orElseThrow(() -> new ResourceNotFoundException("Expense not found with ID: " + id));
-        checkCanEdit(userId, expense);
+        memberships.checkCanEdit(userId, expense.getUserId());
         expenseRepository.delete(expense);
-        aiService.invalidateInsightsCache(userId);
+        rollups.remove(Entry.of(expense));
+        tombstoneRepository.save(new SyncTombstone(householdId, SyncTombstone.EXPENSE, id));
+        dataVersions.bump(householdId);
+    }
+
+    /** Expenses created or modified after {@code since}, for delta sync. */
+    public List<ExpenseResponse> getExpensesChangedSince(LocalDateTime since, Long userId) {
+        Long householdId = memberships.getHouseholdId(userId);
+        return toResponses(expenseRepository.findByHouseholdIdAndUpdatedAtAfter(householdId, since));
     }
 
     public List<ExpenseResponse> getExpensesByCategory(String category, Long userId) {
-        Long householdId = getHouseholdId(userId);
-        return expenseRepository.findByCategoryAndHouseholdId(category, householdId).stream()
-                .map(this::toResponse).collect(Collectors.toList());
+        Long householdId = memberships.getHouseholdId(userId);
+        return toResponses(expenseRepository.findByCategoryAndHouseholdId(category, householdId));
     }
 
     public List<ExpenseResponse> getExpensesByDateRange(LocalDate startDate, LocalDate endDate, Long userId) {
-        Long householdId = getHouseholdId(userId);
-        return expenseRepository.findByDateBetweenAndHouseholdId(startDate, endDate, householdId).stream()
-                .map(this::toResponse).collect(Collectors.toList());
+        Long householdId = memberships.getHouseholdId(userId);
+        return toResponses(expenseRepository.findByDateBetweenAndHouseholdId(startDate, endDate, householdId));
     }
 
     public List<ExpenseResponse> getExpensesByCurrency(String currency, Long userId) {
-        Long householdId = getHouseholdId(userId);
-        return expenseRepository.findByCurrencyAndHouseholdId(currency, householdId).stream()
-                .map(this::toResponse).collect(Collectors.toList());
+        Long householdId = memberships.getHouseholdId(userId);
+        return toResponses(expenseRepository.findByCurrencyAndHouseholdId(currency, householdId));
     }
 
     public List<ExpenseResponse> getExpensesByDate(LocalDate date, Long userId) {
-        Long householdId = getHouseholdId(userId);
-        return expenseRepository.findByDateAndHouseholdId(date, householdId).stream()
-                .map(this::toResponse).collect(Collectors.toList());
+        Long householdId = memberships.getHouseholdId(userId);
+        return toResponses(expenseRepository.findByDateAndHouseholdId(date, householdId));
     }
 
     private Expense buildNewExpense(ExpenseCreateRequest request, Long userId) {
-        Long householdId = getHouseholdId(userId);
+        return buildNewExpense(request, userId, memberships.getHouseholdId(userId), Map.of());
+    }
+
+    private Expense buildNewExpense(ExpenseCreateRequest request, Long userId, Long householdId,
+                                    Map<String, String> suggestedCategories) {
         Expense expense = new Expense();
         expense.setDescription(request.getDescription());
         expense.setAmount(request.getAmount());
@@ -175,8 +250,19 @@ public class ExpenseService {
 
         if (StringUtils.hasText(request.getCategory())) {
             expense.setCategory(request.getCategory());
+            categorizer.observe(householdId, request.getDescription(), request.getCategory());
         } else {
-            expense.setCategory(aiService.suggestCategory(request.getDescription()));
+            String suggested = suggestedCategories.get(request.getDescription());
+            if (suggested == null) {
+                suggested = categorizer.categorizeLocally(householdId, request.getDescription());
+            }
+            if (suggested != null) {
+                expense.setCategory(suggested);
+            } else {
+                // Groq is asked by the CategorizationWorker once the row is committed
+                expense.setCategory(PROVISIONAL_CATEGORY);
+                expense.setCategoryPending(true);
+            }
         }
 
         return expense;
@@ -0,0 +1,192 @@
+package com.leozara.cashwise.service;
+
+import com.leozara.cashwise.service.GroqClient.Operation;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * One circuit breaker per Groq model: text (everything but receipts) and vision. A breaker looks at
+ * the last {@code groq.circuit.window-size} calls; once at least {@code minimum-calls} of them are
+ * in and {@code failure-rate-threshold} percent failed, it opens and calls fail at once with
+ * {@link CircuitOpenException}, which AiService turns into its usual fallbacks. Timeouts, I/O errors,
+ * 429 and 5xx answers count as failures, and so do successful calls slower than the model's
+ * {@code slow-call-threshold}. After {@code open-duration} one trial call is let through: its
+ * success closes the breaker, its failure opens it again.
+ *
+ * <p>State is published as the {@code ai.circuit.state} gauge (0 closed, 1 half-open, 2 open) and
+ * rejected calls as {@code ai.circuit.rejected}, both tagged by {@code model}.
+ */
+@Slf4j
+@Component
+public class GroqCircuitBreakers {
+
+    public enum Model { TEXT, VISION }
+
+    public enum State { CLOSED, HALF_OPEN, OPEN }
+
+    private final Map<Model, Breaker> breakers = new EnumMap<>(Model.class);
+
+    public GroqCircuitBreakers(MeterRegistry meterRegistry,
+                               @Value("${groq.circuit.window-size:20}") int windowSize,
+                               @Value("${groq.circuit.minimum-calls:10}") int minimumCalls,
+                               @Value("${groq.circuit.failure-rate-threshold:50}") int failureRateThreshold,
+                               @Value("${groq.circuit.slow-call-threshold.text:15s}") Duration textSlowCallThreshold,
+                               @Value("${groq.circuit.slow-call-threshold.vision:40s}") Duration visionSlowCallThreshold,
+                               @Value("${groq.circuit.open-duration:30s}") Duration openDuration) {
+        this(meterRegistry, windowSize, minimumCalls, failureRateThreshold,
+                Map.of(Model.TEXT, textSlowCallThreshold, Model.VISION, visionSlowCallThreshold), openDuration,
+                System::nanoTime);
+    }
+
+    GroqCircuitBreakers(MeterRegistry meterRegistry, int windowSize, int minimumCalls, int failureRateThreshold,
+                        Map<Model, Duration> slowCallThresholds, Duration openDuration, LongSupplier nanoClock) {
+        for (Model model : Model.values()) {
+            Breaker breaker = new Breaker(model, windowSize, minimumCalls, failureRateThreshold,
+                    slowCallThresholds.get(model).toNanos(), openDuration.toNanos(), nanoClock,
+                    meterRegistry.counter("ai.circuit.rejected", "model", model.name().toLowerCase(Locale.ROOT)));
+            Gauge.builder("ai.circuit.state", breaker, b -> b.state().ordinal())
+                    .description("Groq circuit breaker state: 0 closed, 1 half-open, 2 open")
+                    .tag("model", model.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry);
+            breakers.put(model, breaker);
+        }
+    }
+
+    public static Model modelOf(Operation operation) {
+        return operation == Operation.SCAN_RECEIPT ? Model.VISION : Model.TEXT;
+    }
+
+    Breaker forOperation(Operation operation) {
+        return breakers.get(modelOf(operation));
+    }
+
+    public State state(Model model) {
+        return breakers.get(model).state();
+    }
+
+    /** The breaker is open, or its trial call is still running; the call was not sent. */
+    public static class CircuitOpenException extends RuntimeException {
+        CircuitOpenException(Model model) {
+            super("Groq " + model.name().toLowerCase(Locale.ROOT) + " circuit is open");
+        }
+    }
+
+    static final class Breaker {
+
+        private final Model model;
+        private final boolean[] window;
+        private final int minimumCalls;
+        private final int failureRateThreshold;
+        private final long slowCallNanos;
+        private final long openNanos;
+        private final LongSupplier nanoClock;
+        private final Counter rejected;
+
+        private State state = State.CLOSED;
+        private long openedAt;
+        private boolean trialRunning;
+        private int next;
+        private int recorded;
+        private int failures;
+
+        private Breaker(Model model, int windowSize, int minimumCalls, int failureRateThreshold,
+                        long slowCallNanos, long openNanos, LongSupplier nanoClock, Counter rejected) {
+            this.model = model;
+            this.window = new boolean[windowSize];
+            this.minimumCalls = Math.min(minimumCalls, windowSize);
+            this.failureRateThreshold = failureRateThreshold;
+            this.slowCallNanos = slowCallNanos;
+            this.openNanos = openNanos;
+            this.nanoClock = nanoClock;
+            this.rejected = rejected;
+        }
+
+        /**
+         * Lets the call through or throws {@link CircuitOpenException}. Every permitted call must end
+         * in exactly one of the {@code on*} methods.
+         */
+        synchronized void acquirePermission() {
+            if (state == State.OPEN && nanoClock.getAsLong() - openedAt >= openNanos) {
+                transition(State.HALF_OPEN);
+            }
+            if (state == State.CLOSED) return;
+            if (state == State.HALF_OPEN && !trialRunning) {
+                trialRunning = true;
+                return;
+            }
+            rejected.increment();
+            throw new CircuitOpenException(model);
+        }
+
+        synchronized void onSuccess(long elapsedNanos) {
+            record(elapsedNanos > slowCallNanos);
+        }
+
+        synchronized void onFailure() {
+            record(true);
+        }
+
+        /** The call ended without saying anything about Groq's health (rejected locally, interrupted). */
+        synchronized void onIgnored() {
+            if (state == State.HALF_OPEN) trialRunning = false;
+        }
+
+        synchronized State state() {
+            return state;
+        }
+
+        private void record(boolean failed) {
+            if (state == State.HALF_OPEN) {
+                trialRunning = false;
+                if (failed) {
+                    open();
+                } else {
+                    reset();
+                    transition(State.CLOSED);
+                }
+                return;
+            }
+            if (state == State.OPEN) return; // a call that started before the breaker opened
+
+            if (recorded == window.length) {
+                if (window[next]) failures--;
+            } else {
+                recorded++;
+            }
+            window[next] = failed;
+            if (failed) failures++;
+            next = (next + 1) % window.length;
+
+            if (recorded >= minimumCalls && failures * 100 >= failureRateThreshold * recorded) {
+                open();
+            }
+        }
+
+        private void open() {
+            openedAt = nanoClock.getAsLong();
+            transition(State.OPEN);
+        }
+
+        private void reset() {
+            next = 0;
+            recorded = 0;
+            failures = 0;
+        }
+
+        private void transition(State to) {
+            if (state == to) return;
+            log.warn("Groq {} circuit {} -> {}", model.name().toLowerCase(Locale.ROOT), state, to);
+            state = to;
+        }
+    }
+}
@@ -0,0 +1,401 @@
+package com.leozara.cashwise.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * HTTP client for the Groq chat completions API. One shared {@link HttpClient} keeps connections
+ * alive between calls and negotiates HTTP/2 when the server offers it, so requests do not pay a
+ * TLS handshake each.
+ *
+ * <p>At most {@code groq.http.max-in-flight} requests run at once. Further callers wait up to
+ * {@code groq.http.queue-timeout} for a slot, but only {@code groq.http.max-queued} of them; beyond
+ * that a call fails immediately with {@link SaturatedException}, so a slow upstream holds a bounded
+ * number of request threads instead of all of them. Before that, a call must get past the circuit
+ * breaker of its model ({@link GroqCircuitBreakers}), which fails it immediately while Groq is down.
+ *
+ * <p>{@link #stream} sends the request with {@code stream=true} and hands back the completion as it is
+ * generated. The stream holds its slot until it is closed; closing it early cancels the upstream
+ * exchange, so Groq stops generating and the connection is not kept busy.
+ *
+ * <p>Latency, errors and the token usage Groq reports are recorded by {@link AiTelemetry}.
+ */
+@Component
+public class GroqClient {
+
+    /** Image URL to put in a request body passed with an {@link ImageUpload}. */
+    public static final String IMAGE_URL = "cashwise:image-upload";
+
+    /** Image bytes read from {@code source}, exactly {@code size} of them, sent as a base64 data URL. */
+    public record ImageUpload(InputStreamSource source, long size, String mimeType) {}
+
+    /** Kind of call, which decides how long the response may take. */
+    public enum Operation {
+        CATEGORY, CATEGORY_BATCH, PARSE_EXPENSE, PARSE_INCOME, INSIGHTS, BUDGET_ADVICE, CHAT, SCAN_RECEIPT
+    }
+
+    private final String apiUrl;
+    private final String apiKey;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Semaphore inFlight;
+    private final int maxQueued;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Duration queueTimeout;
+
+    private final Duration categoryTimeout;
+    private final Duration textTimeout;
+    private final Duration chatTimeout;
+    private final Duration visionTimeout;
+
+    private final GroqCircuitBreakers circuitBreakers;
+    private final AiTelemetry telemetry;
+
+    public GroqClient(AiTelemetry telemetry,
+                      GroqCircuitBreakers circuitBreakers,
+                      @Value("${groq.api.url}") String apiUrl,
+                      @Value("${groq.api.key:}") String apiKey,
+                      @Value("${groq.http.max-in-flight:16}") int maxInFlight,
+                      @Value("${groq.http.max-queued:32}") int maxQueued,
+                      @Value("${groq.http.queue-timeout:2s}") Duration queueTimeout,
+                      @Value("${groq.http.connect-timeout:5s}") Duration connectTimeout,
+                      @Value("${groq.http.timeout.category:5s}") Duration categoryTimeout,
+                      @Value("${groq.http.timeout.text:20s}") Duration textTimeout,
+                      @Value("${groq.http.timeout.chat:45s}") Duration chatTimeout,
+                      @Value("${groq.http.timeout.vision:60s}") Duration visionTimeout) {
+        this.telemetry = telemetry;
+        this.circuitBreakers = circuitBreakers;
+        this.apiUrl = apiUrl;
+        this.apiKey = apiKey;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(connectTimeout)
+                .build();
+        this.inFlight = new Semaphore(maxInFlight, true);
+        this.maxQueued = maxQueued;
+        this.queueTimeout = queueTimeout;
+        this.categoryTimeout = categoryTimeout;
+        this.textTimeout = textTimeout;
+        this.chatTimeout = chatTimeout;
+        this.visionTimeout = visionTimeout;
+    }
+
+    public boolean isConfigured() {
+        return apiKey != null && !apiKey.isBlank();
+    }
+
+    /** Posts a chat completions request and returns the decoded response body. */
+    public Map<String, Object> complete(Operation operation, Map<String, Object> body) throws IOException {
+        return send(operation, body, HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)));
+    }
+
+    /**
+     * Same as {@link #complete(Operation, Map)} for a body whose image URL is {@link #IMAGE_URL}: the
+     * request is sent with a data URL of {@code image} in its place, base64-encoded block by block
+     * while it is written, so neither the encoded image nor the full request is held in memory.
+     */
+    public Map<String, Object> complete(Operation operation, Map<String, Object> body, ImageUpload image)
+            throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(body);
+        byte[] placeholder = objectMapper.writeValueAsBytes(IMAGE_URL);
+        int at = indexOf(json, placeholder);
+        if (at < 0) throw new IllegalArgumentException("Request body has no " + IMAGE_URL);
+        // Keep the placeholder's quotes, replace what is between them
+        int valueStart = at + 1;
+        int valueEnd = at + placeholder.length - 1;
+        byte[] dataUrlPrefix = ("data:" + image.mimeType() + ";base64,").getBytes(StandardCharsets.US_ASCII);
+        long encodedLength = 4 * ((image.size() + 2) / 3);
+        HttpRequest.BodyPublisher publisher = HttpRequest.BodyPublishers.concat(
+                HttpRequest.BodyPublishers.ofByteArray(json, 0, valueStart),
+                HttpRequest.BodyPublishers.ofByteArray(dataUrlPrefix),
+                HttpRequest.BodyPublishers.fromPublisher(
+                        HttpRequest.BodyPublishers.ofInputStream(() -> encode(image)), encodedLength),
+                HttpRequest.BodyPublishers.ofByteArray(json, valueEnd, json.length - valueEnd));
+        return send(operation, body, publisher);
+    }
+
+    private Map<String, Object> send(Operation operation, Map<String, Object> body,
+                                     HttpRequest.BodyPublisher publisher) throws IOException {
+        String model = modelOf(body);
+        Long householdId = telemetry.currentHousehold();
+        GroqCircuitBreakers.Breaker breaker = permit(operation, model);
+        long started = System.nanoTime();
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(apiUrl))
+                    .timeout(timeout(operation))
+                    .header("Content-Type", "application/json")
+                    .header("Authorization", "Bearer " + apiKey)
+                    .POST(publisher)
+                    .build();
+            HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() / 100 != 2) {
+                throw new UpstreamException(response.statusCode());
+            }
+            Map<String, Object> completion = objectMapper.readValue(response.body(), new TypeReference<>() {});
+            long elapsed = System.nanoTime() - started;
+            breaker.onSuccess(elapsed);
+            telemetry.recordCall(operation, model, elapsed, null);
+            telemetry.recordUsage(operation, model, householdId, completion.get("usage"));
+            return completion;
+        } catch (InterruptedException e) {
+            breaker.onIgnored();
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while calling Groq", e);
+        } catch (IOException | RuntimeException e) {
+            recordFailure(breaker, e, started);
+            telemetry.recordCall(operation, model, System.nanoTime() - started, e);
+            throw e;
+        } finally {
+            inFlight.release();
+        }
+    }
+
+    /**
+     * Posts a streaming chat completions request. The timeout covers the whole completion, not only
+     * the time to the first byte. The caller must close the returned stream.
+     */
+    public CompletionStream stream(Operation operation, Map<String, Object> body) throws IOException {
+        String model = modelOf(body);
+        Long householdId = telemetry.currentHousehold();
+        GroqCircuitBreakers.Breaker breaker = permit(operation, model);
+        long started = System.nanoTime();
+        try {
+            Map<String, Object> streamingBody = new HashMap<>(body);
+            streamingBody.put("stream", true);
+            Duration timeout = timeout(operation);
+            HttpRequest request = HttpRequest.newBuilder(URI.create(apiUrl))
+                    .timeout(timeout)
+                    .header("Content-Type", "application/json")
+                    .header("Accept", "text/event-stream")
+                    .header("Authorization", "Bearer " + apiKey)
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(streamingBody)))
+                    .build();
+            HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            if (response.statusCode() / 100 != 2) {
+                response.body().close();
+                throw new UpstreamException(response.statusCode());
+            }
+            // Judged on getting the stream started; a stalled stream ends in its own timeout
+            breaker.onSuccess(System.nanoTime() - started);
+            return new CompletionStream(operation, model, householdId, started, response.body(), timeout);
+        } catch (InterruptedException e) {
+            breaker.onIgnored();
+            inFlight.release();
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while calling Groq", e);
+        } catch (IOException | RuntimeException e) {
+            recordFailure(breaker, e, started);
+            telemetry.recordCall(operation, model, System.nanoTime() - started, e);
+            inFlight.release();
+            throw e;
+        }
+    }
+
+    /** Passes the model's circuit breaker, then takes a request slot. */
+    private GroqCircuitBreakers.Breaker permit(Operation operation, String model) throws IOException {
+        GroqCircuitBreakers.Breaker breaker = circuitBreakers.forOperation(operation);
+        try {
+            breaker.acquirePermission();
+        } catch (RuntimeException e) {
+            telemetry.recordError(operation, model, e);
+            throw e;
+        }
+        try {
+            acquire(operation);
+        } catch (IOException | RuntimeException e) {
+            breaker.onIgnored();
+            telemetry.recordError(operation, model, e);
+            throw e;
+        }
+        return breaker;
+    }
+
+    private static InputStream encode(ImageUpload image) {
+        try {
+            return new Base64EncodingInputStream(image.source().getInputStream());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static int indexOf(byte[] haystack, byte[] needle) {
+        outer:
+        for (int i = 0; i <= haystack.length - needle.length; i++) {
+            for (int j = 0; j < needle.length; j++) {
+                if (haystack[i + j] != needle[j]) continue outer;
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private static String modelOf(Map<String, Object> body) {
+        Object model = body.get("model");
+        return model != null ? model.toString() : "unknown";
+    }
+
+    /** Client errors other than 429 mean Groq is up and answering; they do not count against it. */
+    private void recordFailure(GroqCircuitBreakers.Breaker breaker, Exception e, long started) {
+        if (e instanceof UpstreamException upstream && upstream.getStatus() != 429 && upstream.getStatus() < 500) {
+            breaker.onSuccess(System.nanoTime() - started);
+        } else {
+            breaker.onFailure();
+        }
+    }
+
+    Duration timeout(Operation operation) {
+        return switch (operation) {
+            case CATEGORY -> categoryTimeout;
+            case CHAT -> chatTimeout;
+            case SCAN_RECEIPT -> visionTimeout;
+            default -> textTimeout;
+        };
+    }
+
+    private void acquire(Operation operation) throws IOException {
+        if (inFlight.tryAcquire()) return;
+        if (queued.incrementAndGet() > maxQueued) {
+            queued.decrementAndGet();
+            throw new SaturatedException(operation);
+        }
+        try {
+            if (!inFlight.tryAcquire(queueTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new SaturatedException(operation);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a Groq slot", e);
+        } finally {
+            queued.decrementAndGet();
+        }
+    }
+
+    /** A completion being received as server-sent events, one content delta at a time. */
+    public final class CompletionStream implements Closeable {
+
+        private final Operation operation;
+        private final String model;
+        private final Long householdId;
+        private final long started;
+        private final InputStream body;
+        private final BufferedReader reader;
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile boolean timedOut;
+        private volatile IOException failure;
+
+        private CompletionStream(Operation operation, String model, Long householdId, long started,
+                                 InputStream body, Duration timeout) {
+            this.operation = operation;
+            this.model = model;
+            this.householdId = householdId;
+            this.started = started;
+            this.body = body;
+            this.reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+            // Also unblocks a reader stuck on an upstream that stopped sending
+            CompletableFuture.delayedExecutor(timeout.toMillis(), TimeUnit.MILLISECONDS).execute(() -> {
+                if (closed.get()) return;
+                timedOut = true;
+                close();
+            });
+        }
+
+        /** The next piece of generated text, or null once the completion has finished. */
+        public String next() throws IOException {
+            try {
+                return readDelta();
+            } catch (IOException e) {
+                failure = timedOut ? new HttpTimeoutException("Groq stream exceeded its timeout") : e;
+                throw failure;
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private String readDelta() throws IOException {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.startsWith("data:")) continue;
+                String data = line.substring(5).trim();
+                if ("[DONE]".equals(data)) return null;
+                Map<String, Object> chunk = objectMapper.readValue(data, new TypeReference<>() {});
+                if (chunk.get("error") != null) {
+                    throw new IOException("Groq stream failed: " + chunk.get("error"));
+                }
+                // Groq reports usage on the final chunk, under x_groq
+                if (chunk.get("x_groq") instanceof Map<?, ?> groq) {
+                    telemetry.recordUsage(operation, model, householdId, groq.get("usage"));
+                }
+                List<Map<String, Object>> choices = (List<Map<String, Object>>) chunk.get("choices");
+                if (choices == null || choices.isEmpty()) continue;
+                Map<String, Object> delta = (Map<String, Object>) choices.get(0).get("delta");
+                Object content = delta == null ? null : delta.get("content");
+                // The first chunk carries only the role, the last one only the finish reason
+                if (content != null && !content.toString().isEmpty()) return content.toString();
+            }
+            if (timedOut) throw new HttpTimeoutException("Groq stream exceeded its timeout");
+            return null;
+        }
+
+        /** Releases the request slot; before the end of the completion this also cancels it upstream. */
+        @Override
+        public void close() {
+            if (!closed.compareAndSet(false, true)) return;
+            telemetry.recordCall(operation, model, System.nanoTime() - started,
+                    timedOut ? new HttpTimeoutException("Groq stream exceeded its timeout") : failure);
+            try {
+                body.close();
+            } catch (IOException ignored) {
+                // The exchange is being abandoned either way
+            } finally {
+                inFlight.release();
+            }
+        }
+    }
+
+    /** No request slot became free in time; the call was not sent. */
+    public static class SaturatedException extends RuntimeException {
+        SaturatedException(Operation operation) {
+            super("Too many concurrent AI requests, rejected " + operation);
+        }
+    }
+
+    /** Groq answered with a non-2xx status. */
+    public static class UpstreamException extends RuntimeException {
+        private final int status;
+
+        UpstreamException(int status) {
+            super("Groq responded with HTTP " + status);
+            this.status = status;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+    }
+}
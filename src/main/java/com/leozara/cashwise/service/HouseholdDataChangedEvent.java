@@ -0,0 +1,5 @@
+package com.leozara.cashwise.service;
+
+/** Published after a commit that changed a household's expenses, incomes, subscriptions or budgets. */
+public record HouseholdDataChangedEvent(Long householdId) {
+}
@@ -0,0 +1,80 @@
+package com.leozara.cashwise.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version of each household's data, bumped by every write to its expenses, incomes, subscriptions
+ * or budgets. List endpoints send it as their ETag and answer a matching If-None-Match with 304
+ * without touching the repositories.
+ *
+ * <p>Versions are drawn from one process-wide sequence, so a household that was evicted, or first seen
+ * after a restart (the ETag also carries a boot id), always gets a version no client has cached.
+ *
+ * <p>Every bump is also published as a {@link HouseholdDataChangedEvent}, for caches derived from the data.
+ */
+@Component
+public class HouseholdDataVersions {
+
+    private final HouseholdMembershipResolver memberships;
+    private final ApplicationEventPublisher events;
+    private final Cache<Long, Long> versions;
+    private final AtomicLong sequence = new AtomicLong();
+    private final String bootId = Long.toString(System.currentTimeMillis(), 36);
+
+    public HouseholdDataVersions(HouseholdMembershipResolver memberships,
+                                 ApplicationEventPublisher events,
+                                 @Value("${app.data-versions.max-size:100000}") long maxSize) {
+        this.memberships = memberships;
+        this.events = events;
+        this.versions = Caffeine.newBuilder().maximumSize(maxSize).build();
+    }
+
+    /** Strong ETag for the household the user belongs to. */
+    public String etagFor(Long userId) {
+        Long householdId = memberships.getHouseholdId(userId);
+        return "\"" + householdId + "-" + bootId + "-" + version(householdId) + "\"";
+    }
+
+    /** Current version of the household's data; it changes on every committed write. */
+    public long version(Long householdId) {
+        return versions.get(householdId, id -> sequence.incrementAndGet());
+    }
+
+    /**
+     * Marks the household's data as changed. Inside a transaction the bump waits for the commit:
+     * bumping earlier would let a concurrent read tag the old rows with the new version.
+     */
+    public void bump(Long householdId) {
+        if (householdId == null) return;
+        afterCommit(() -> {
+            versions.put(householdId, sequence.incrementAndGet());
+            events.publishEvent(new HouseholdDataChangedEvent(householdId));
+        });
+    }
+
+    /** Bumps the household the user currently belongs to, if any. */
+    public void bumpForUser(Long userId) {
+        bump(memberships.findHouseholdId(userId));
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
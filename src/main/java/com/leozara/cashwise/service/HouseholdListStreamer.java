@@ -0,0 +1,78 @@
+package com.leozara.cashwise.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Writes an unpaginated household list as a JSON array straight from a forward-only
+ * database cursor. Rows are mapped and flushed in fixed-size batches and the persistence
+ * context is cleared after each one, so heap use does not grow with the number of rows.
+ */
+@Component
+public class HouseholdListStreamer {
+
+    public static final int BATCH_SIZE = 500;
+
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTx;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public HouseholdListStreamer(ObjectMapper objectMapper, PlatformTransactionManager transactionManager) {
+        this.objectMapper = objectMapper;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+    }
+
+    /**
+     * The row stream is opened lazily when the response body is written, inside its own
+     * read-only transaction (PostgreSQL only honours the fetch size with autocommit off).
+     */
+    public <E, R> StreamingResponseBody stream(Supplier<Stream<E>> rows, Function<List<E>, List<R>> mapper) {
+        return out -> readOnlyTx.executeWithoutResult(status -> {
+            try (Stream<E> stream = rows.get()) {
+                writeArray(stream.iterator(), mapper, out);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private <E, R> void writeArray(Iterator<E> rows, Function<List<E>, List<R>> mapper, OutputStream out)
+            throws IOException {
+        out.write('[');
+        boolean first = true;
+        List<E> batch = new ArrayList<>(BATCH_SIZE);
+        while (rows.hasNext()) {
+            batch.add(rows.next());
+            if (batch.size() == BATCH_SIZE || !rows.hasNext()) {
+                for (R item : mapper.apply(batch)) {
+                    if (!first) out.write(',');
+                    out.write(objectMapper.writeValueAsBytes(item));
+                    first = false;
+                }
+                batch.clear();
+                entityManager.clear();
+                out.flush();
+            }
+        }
+        out.write(']');
+        out.flush();
+    }
+}
@@ -0,0 +1,91 @@
+package com.leozara.cashwise.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.leozara.cashwise.repository.HouseholdMemberRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Resolves a user's household and role, shared by every household-scoped service.
+ * Memberships change rarely, so they are cached per user and evicted by HouseholdService
+ * whenever a membership is created, accepted, removed, left or deleted.
+ */
+@Component
+public class HouseholdMembershipResolver {
+
+    public record Membership(Long householdId, String role) {
+        public boolean isOwner() {
+            return "OWNER".equals(role);
+        }
+    }
+
+    private final HouseholdMemberRepository memberRepository;
+    private final Cache<Long, Membership> cache;
+
+    public HouseholdMembershipResolver(HouseholdMemberRepository memberRepository,
+                                       @Value("${app.membership-cache.max-size:10000}") long maxSize) {
+        this.memberRepository = memberRepository;
+        this.cache = Caffeine.newBuilder().maximumSize(maxSize).build();
+    }
+
+    public Long getHouseholdId(Long userId) {
+        Membership membership = find(userId);
+        if (membership == null) {
+            throw new IllegalStateException("You are not part of any household");
+        }
+        return membership.householdId();
+    }
+
+    /** The user's household id, or null when they are not part of one. */
+    public Long findHouseholdId(Long userId) {
+        Membership membership = find(userId);
+        return membership != null ? membership.householdId() : null;
+    }
+
+    /** Owners may modify any entry of the household; members only their own. */
+    public void checkCanEdit(Long currentUserId, Long entryUserId) {
+        Membership membership = find(currentUserId);
+        if (membership == null) {
+            throw new AccessDeniedException("Not a household member");
+        }
+        if (!membership.isOwner() && !currentUserId.equals(entryUserId)) {
+            throw new AccessDeniedException("You can only modify your own entries");
+        }
+    }
+
+    public void evict(Long userId) {
+        runNowAndAfterCompletion(() -> cache.invalidate(userId));
+    }
+
+    public void evictHousehold(Long householdId) {
+        runNowAndAfterCompletion(() -> cache.asMap().values()
+                .removeIf(m -> householdId.equals(m.householdId())));
+    }
+
+    private Membership find(Long userId) {
+        // A null result is not cached, so users without a household are looked up again next time
+        return cache.get(userId, id -> memberRepository.findByUserId(id)
+                .map(m -> new Membership(m.getHouseholdId(), m.getRole()))
+                .orElse(null));
+    }
+
+    /**
+     * Evicting only before commit would let a concurrent request re-cache the old row,
+     * so eviction is repeated once the surrounding transaction has finished.
+     */
+    private void runNowAndAfterCompletion(Runnable eviction) {
+        eviction.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    eviction.run();
+                }
+            });
+        }
+    }
+}
@@ -24,6 +24,7 @@ public class HouseholdService {
     private final HouseholdInvitationRepository invitationRepository;
     private final UserRepository userRepository;
     private final EmailService emailService;
+    private final HouseholdMembershipResolver memberships;
 
     public HouseholdResponse getMyHousehold(Long userId) {
         HouseholdMember member = memberRepository.findByUserId(userId)
@@ -61,6 +62,7 @@ public class HouseholdService {
         Household household = new Household(name, userId);
         Household saved = householdRepository.save(household);
         memberRepository.save(new HouseholdMember(saved.getId(), userId, "OWNER"));
+        memberships.evict(userId);
         return saved;
     }
 
@@ -155,6 +157,7 @@ public class HouseholdService {
         invitationRepository.save(invitation);
 
         memberRepository.save(new HouseholdMember(invitation.getHouseholdId(), userId, "MEMBER"));
+        memberships.evict(userId);
     }
 
     @Transactional
@@ -186,6 +189,7 @@ public class HouseholdService {
                 .orElseThrow(() -> new IllegalArgumentException("Member not found in household"));
 
         memberRepository.delete(targetMember);
+        memberships.evict(targetUserId);
     }
 
     @Transactional
@@ -196,6 +200,7 @@ public class HouseholdService {
             throw new IllegalArgumentException("The owner cannot leave. Delete the household or transfer ownership.");
         }
         memberRepository.delete(member);
+        memberships.evict(userId);
     }
 
     /**
@@ -211,6 +216,7 @@ public class HouseholdService {
         Household household = new Household(userName + "'s Household", userId);
         Household saved = householdRepository.save(household);
         memberRepository.save(new HouseholdMember(saved.getId(), userId, "OWNER"));
+        memberships.evict(userId);
     }
 
     /**
@@ -223,7 +229,9 @@ public class HouseholdService {
         memberRepository.findByUserId(userId).ifPresent(member -> {
             if ("OWNER".equals(member.getRole())) {
                 householdRepository.deleteById(member.getHouseholdId());
+                memberships.evictHousehold(member.getHouseholdId());
             }
         });
+        memberships.evict(userId);
     }
 }
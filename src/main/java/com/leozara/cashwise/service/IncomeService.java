@@ -1,25 +1,30 @@
 package com.leozara.cashwise.service;
 
+import com.leozara.cashwise.dto.CursorPage;
 import com.leozara.cashwise.dto.IncomeCreateRequest;
 import com.leozara.cashwise.dto.IncomeResponse;
 import com.leozara.cashwise.dto.IncomeUpdateRequest;
 import com.leozara.cashwise.exception.ResourceNotFoundException;
-import com.leozara.cashwise.model.HouseholdMember;
 import com.leozara.cashwise.model.Income;
-import com.leozara.cashwise.repository.HouseholdMemberRepository;
+import com.leozara.cashwise.model.SyncTombstone;
 import com.leozara.cashwise.repository.IncomeRepository;
-import com.leozara.cashwise.repository.UserRepository;
+import com.leozara.cashwise.repository.SyncTombstoneRepository;
+import com.leozara.cashwise.repository.UserRepository.AuthorView;
+import com.leozara.cashwise.service.MonthlyRollupService.Entry;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -27,17 +32,26 @@ import java.util.stream.Collectors;
 public class IncomeService {
 
     private final IncomeRepository incomeRepository;
-    private final HouseholdMemberRepository memberRepository;
-    private final UserRepository userRepository;
-    private final AiService aiService;
+    private final HouseholdMembershipResolver memberships;
+    private final AuthorResolver authorResolver;
+    private final HouseholdListStreamer listStreamer;
+    private final MonthlyRollupService rollups;
+    private final SyncTombstoneRepository tombstoneRepository;
+    private final HouseholdDataVersions dataVersions;
 
-    private Long getHouseholdId(Long userId) {
-        return memberRepository.findByUserId(userId)
-                .orElseThrow(() -> new IllegalStateException("You are not part of any household"))
-                .getHouseholdId();
+    private IncomeResponse toResponse(Income income) {
+        return toResponses(List.of(income)).get(0);
     }
 
-    private IncomeResponse toResponse(Income income) {
+    private List<IncomeResponse> toResponses(List<Income> incomes) {
+        Map<Long, AuthorView> authors = authorResolver.resolve(
+                incomes.stream().map(Income::getUserId).toList());
+        return incomes.stream()
+                .map(i -> toResponse(i, authors.get(i.getUserId())))
+                .collect(Collectors.toList());
+    }
+
+    private IncomeResponse toResponse(Income income, AuthorView author) {
         IncomeResponse resp = new IncomeResponse();
         resp.setId(income.getId());
         resp.setDescription(income.getDescription());
@@ -48,40 +62,40 @@ public class IncomeService {
         resp.setUserId(income.getUserId());
         resp.setHouseholdId(income.getHouseholdId());
         resp.setCreatedAt(income.getCreatedAt());
-        userRepository.findById(income.getUserId()).ifPresent(u -> {
-            resp.setAddedByName(u.getName());
-            resp.setAddedByUsername(u.getUsername());
-        });
-        return resp;
-    }
-
-    private void checkCanEdit(Long currentUserId, Income income) {
-        HouseholdMember member = memberRepository.findByUserId(currentUserId)
-                .orElseThrow(() -> new AccessDeniedException("Not a household member"));
-        if (!"OWNER".equals(member.getRole()) && !currentUserId.equals(income.getUserId())) {
-            throw new AccessDeniedException("You can only modify your own entries");
+        resp.setUpdatedAt(income.getUpdatedAt());
+        if (author != null) {
+            resp.setAddedByName(author.getName());
+            resp.setAddedByUsername(author.getUsername());
         }
+        return resp;
     }
 
     @Transactional
     public IncomeResponse createIncome(IncomeCreateRequest request, Long userId) {
-        IncomeResponse response = toResponse(incomeRepository.save(buildNewIncome(request, userId)));
-        aiService.invalidateInsightsCache(userId);
-        return response;
+        Income saved = incomeRepository.save(buildNewIncome(request, userId));
+        rollups.add(Entry.of(saved));
+        dataVersions.bump(saved.getHouseholdId());
+        return toResponse(saved);
     }
 
     @Transactional
     public List<IncomeResponse> createIncomes(List<IncomeCreateRequest> requests, Long userId) {
-        List<IncomeResponse> results = new ArrayList<>(requests.size());
+        Long householdId = memberships.getHouseholdId(userId);
+        List<Income> entries = new ArrayList<>(requests.size());
         for (IncomeCreateRequest request : requests) {
-            results.add(toResponse(incomeRepository.save(buildNewIncome(request, userId))));
+            entries.add(buildNewIncome(request, userId, householdId));
         }
-        aiService.invalidateInsightsCache(userId);
-        return results;
+        List<Income> saved = incomeRepository.saveAll(entries);
+        rollups.add(saved.stream().map(Entry::of).toList());
+        dataVersions.bump(householdId);
+        return toResponses(saved);
     }
 
     private Income buildNewIncome(IncomeCreateRequest request, Long userId) {
-        Long householdId = getHouseholdId(userId);
+        return buildNewIncome(request, userId, memberships.getHouseholdId(userId));
+    }
+
+    private Income buildNewIncome(IncomeCreateRequest request, Long userId, Long householdId) {
         Income income = new Income();
         income.setDescription(request.getDescription());
         income.setAmount(request.getAmount());
@@ -94,21 +108,42 @@ public class IncomeService {
     }
 
     public List<IncomeResponse> getAllIncomes(Long userId) {
-        Long householdId = getHouseholdId(userId);
-        return incomeRepository.findByHouseholdId(householdId).stream()
-                .map(this::toResponse).collect(Collectors.toList());
+        Long householdId = memberships.getHouseholdId(userId);
+        return toResponses(incomeRepository.findByHouseholdId(householdId));
+    }
+
+    /** Same content as {@link #getAllIncomes(Long)}, written to the response without materializing the list. */
+    public StreamingResponseBody streamAllIncomes(Long userId) {
+        Long householdId = memberships.getHouseholdId(userId);
+        return listStreamer.stream(() -> incomeRepository.streamByHouseholdId(householdId), this::toResponses);
     }
 
     public Page<IncomeResponse> getAllIncomes(Long userId, Pageable pageable) {
-        Long householdId = getHouseholdId(userId);
+        Long householdId = memberships.getHouseholdId(userId);
         Page<Income> page = incomeRepository.findByHouseholdId(householdId, pageable);
-        List<IncomeResponse> content = page.getContent().stream()
-                .map(this::toResponse).collect(Collectors.toList());
-        return new PageImpl<>(content, pageable, page.getTotalElements());
+        return new PageImpl<>(toResponses(page.getContent()), pageable, page.getTotalElements());
+    }
+
+    /** Keyset page ordered by (date, id) descending; no total count is computed. */
+    public CursorPage<IncomeResponse> getIncomesAfter(Long userId, String cursor, int size) {
+        Long householdId = memberships.getHouseholdId(userId);
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<Income> rows = after == null
+                ? incomeRepository.findKeysetFirstPage(householdId, limit)
+                : incomeRepository.findKeysetPageAfter(householdId, after.dateKey(), after.id(), limit);
+
+        String next = null;
+        if (rows.size() > size) {
+            rows = rows.subList(0, size);
+            Income last = rows.get(size - 1);
+            next = KeysetCursor.of(last.getDate(), last.getId()).encode();
+        }
+        return new CursorPage<>(toResponses(rows), next);
     }
 
     public IncomeResponse getIncomeById(Long id, Long userId) {
-        Long householdId = getHouseholdId(userId);
+        Long householdId = memberships.getHouseholdId(userId);
         Income income = incomeRepository.findByIdAndHouseholdId(id, householdId)
                 .orElseThrow(() -> new ResourceNotFoundException("Income not found with ID: " + id));
         return toResponse(income);
@@ -116,10 +151,11 @@ public class IncomeService {
 
     @Transactional
     public IncomeResponse updateIncome(Long id, IncomeUpdateRequest incomeDetails, Long userId) {
-        Long householdId = getHouseholdId(userId);
-        Income income = incomeRepository.findByIdAndHouseholdId(id, householdId)
+        Long householdId = memberships.getHouseholdId(userId);
+        Income income = incomeRepository.findByIdAndHouseholdIdForUpdate(id, householdId)
                 .orElseThrow(() -> new ResourceNotFoundException("Income not found with ID: " + id));
-        checkCanEdit(userId, income);
+        memberships.checkCanEdit(userId, income.getUserId());
+        Entry before = Entry.of(income);
 
         income.setDescription(incomeDetails.getDescription());
         income.setAmount(incomeDetails.getAmount());
@@ -127,36 +163,42 @@ public class IncomeService {
         income.setDate(incomeDetails.getDate());
         income.setCategory(incomeDetails.getCategory());
 
-        IncomeResponse response = toResponse(incomeRepository.save(income));
-        aiService.invalidateInsightsCache(userId);
-        return response;
+        Income saved = incomeRepository.save(income);
+        rollups.replace(before, Entry.of(saved));
+        dataVersions.bump(householdId);
+        return toResponse(saved);
     }
 
     @Transactional
     public void deleteIncome(Long id, Long userId) {
-        Long householdId = getHouseholdId(userId);
-        Income income = incomeRepository.findByIdAndHouseholdId(id, householdId)
+        Long householdId = memberships.getHouseholdId(userId);
+        Income income = incomeRepository.findByIdAndHouseholdIdForUpdate(id, householdId)
                 .orElseThrow(() -> new ResourceNotFoundException("Income not found with ID: " + id));
-        checkCanEdit(userId, income);
+        memberships.checkCanEdit(userId, income.getUserId());
         incomeRepository.delete(income);
-        aiService.invalidateInsightsCache(userId);
+        rollups.remove(Entry.of(income));
+        tombstoneRepository.save(new SyncTombstone(householdId, SyncTombstone.INCOME, id));
+        dataVersions.bump(householdId);
+    }
+
+    /** Incomes created or modified after {@code since}, for delta sync. */
+    public List<IncomeResponse> getIncomesChangedSince(LocalDateTime since, Long userId) {
+        Long householdId = memberships.getHouseholdId(userId);
+        return toResponses(incomeRepository.findByHouseholdIdAndUpdatedAtAfter(householdId, since));
     }
 
     public List<IncomeResponse> getIncomesByDateRange(LocalDate startDate, LocalDate endDate, Long userId) {
-        Long householdId = getHouseholdId(userId);
-        return incomeRepository.findByDateBetweenAndHouseholdId(startDate, endDate, householdId).stream()
-                .map(this::toResponse).collect(Collectors.toList());
+        Long householdId = memberships.getHouseholdId(userId);
+        return toResponses(incomeRepository.findByDateBetweenAndHouseholdId(startDate, endDate, householdId));
     }
 
     public List<IncomeResponse> getIncomesByCurrency(String currency, Long userId) {
-        Long householdId = getHouseholdId(userId);
-        return incomeRepository.findByCurrencyAndHouseholdId(currency, householdId).stream()
-                .map(this::toResponse).collect(Collectors.toList());
+        Long householdId = memberships.getHouseholdId(userId);
+        return toResponses(incomeRepository.findByCurrencyAndHouseholdId(currency, householdId));
     }
 
     public List<IncomeResponse> getIncomesByDate(LocalDate date, Long userId) {
-        Long householdId = getHouseholdId(userId);
-        return incomeRepository.findByDateAndHouseholdId(date, householdId).stream()
-                .map(this::toResponse).collect(Collectors.toList());
+        Long householdId = memberships.getHouseholdId(userId);
+        return toResponses(incomeRepository.findByDateAndHouseholdId(date, householdId));
     }
 }
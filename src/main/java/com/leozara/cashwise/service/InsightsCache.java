@@ -0,0 +1,71 @@
+package com.leozara.cashwise.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import com.leozara.cashwise.dto.InsightDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+/**
+ * AI insights per household and display currency. Entries are dropped when any write to the
+ * household commits ({@link HouseholdDataChangedEvent}), so every member sees fresh insights after
+ * anyone's change, and expire {@code app.insights-cache.ttl} after they were generated; expired
+ * entries are removed by a timer rather than on the next read. Hits, misses and evictions are
+ * reported as the {@code cache.*} metrics with {@code cache=insights}.
+ */
+@Component
+public class InsightsCache {
+
+    private record Key(Long householdId, String currency) {}
+
+    private final HouseholdMembershipResolver memberships;
+    private final HouseholdDataVersions dataVersions;
+    private final Cache<Key, List<InsightDto>> cache;
+
+    public InsightsCache(HouseholdMembershipResolver memberships,
+                         HouseholdDataVersions dataVersions,
+                         MeterRegistry meterRegistry,
+                         @Value("${app.insights-cache.max-size:10000}") long maxSize,
+                         @Value("${app.insights-cache.ttl:6h}") Duration ttl) {
+        this.memberships = memberships;
+        this.dataVersions = dataVersions;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .scheduler(Scheduler.systemScheduler())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "insights");
+    }
+
+    /** Cached insights for the user's household, or freshly generated ones (empty results are not cached). */
+    public List<InsightDto> get(Long userId, String currency, Supplier<List<InsightDto>> generate) {
+        Long householdId = memberships.getHouseholdId(userId);
+        Key key = new Key(householdId, currency == null || currency.isBlank() ? "EUR" : currency.toUpperCase(Locale.ROOT));
+        List<InsightDto> cached = cache.getIfPresent(key);
+        if (cached != null) return cached;
+
+        long version = dataVersions.version(householdId);
+        List<InsightDto> insights = generate.get();
+        if (!insights.isEmpty()) {
+            cache.put(key, insights);
+            // A write committed while Groq was answering; its event may have fired before the put
+            if (dataVersions.version(householdId) != version) cache.invalidate(key);
+        }
+        return insights;
+    }
+
+    @EventListener
+    public void onHouseholdDataChanged(HouseholdDataChangedEvent event) {
+        cache.asMap().keySet().removeIf(key -> key.householdId().equals(event.householdId()));
+    }
+}
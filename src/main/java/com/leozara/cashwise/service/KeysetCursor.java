@@ -0,0 +1,48 @@
+package com.leozara.cashwise.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position of the last row of a keyset page: the sort key plus the row id as tie-breaker.
+ * Clients only ever see the encoded form and send it back unchanged.
+ */
+public record KeysetCursor(String key, long id) {
+
+    public static KeysetCursor of(LocalDate date, Long id) {
+        return new KeysetCursor(date.toString(), id);
+    }
+
+    public static KeysetCursor of(String key, Long id) {
+        return new KeysetCursor(key, id);
+    }
+
+    /** Returns null for a missing or empty cursor, meaning "start from the first page". */
+    public static KeysetCursor decode(String token) {
+        if (token == null || token.isBlank()) return null;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int sep = raw.indexOf(':');
+            if (sep <= 0) throw new IllegalArgumentException("Invalid cursor");
+            return new KeysetCursor(raw.substring(sep + 1), Long.parseLong(raw.substring(0, sep)));
+        } catch (IllegalArgumentException e) {
+            // Also covers malformed Base64 and NumberFormatException
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    public String encode() {
+        String raw = id + ":" + key;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public LocalDate dateKey() {
+        try {
+            return LocalDate.parse(key);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
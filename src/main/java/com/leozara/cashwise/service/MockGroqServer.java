@@ -0,0 +1,277 @@
+package com.leozara.cashwise.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Local stand-in for the Groq chat completions API, so AI endpoints can be exercised and load-tested
+ * without a key or network. Speaks the OpenAI-compatible wire format GroqClient uses: a JSON
+ * completion with {@code usage}, or with {@code stream=true} server-sent chunks ending with
+ * {@code x_groq.usage} and {@code [DONE]}.
+ *
+ * <p>The answer is picked by the first canned response whose fragment occurs in the request body.
+ * Defaults cover every prompt AiService sends; anything else gets a short plain-text chat answer.
+ * Each response waits for a log-normal delay with the configured median and p99, then fails with
+ * one of the error statuses at the configured error rate. Streamed answers are sent one word per
+ * chunk, {@code chunkDelay} apart. All settings can be changed while the server is running.
+ *
+ * <p>Used by tests directly and by the {@code mock-groq} profile ({@code MockGroqConfig}).
+ */
+@Slf4j
+public class MockGroqServer implements Closeable {
+
+    public static final String CHAT_ANSWER =
+            "Your biggest category this month is Food. Cooking at home twice more a week would save about 40.";
+
+    private static final Pattern BATCH_SIZE = Pattern.compile("Categorize each of these (\\d+) expenses");
+    /** z-score of the 99th percentile of the standard normal distribution */
+    private static final double Z_99 = 2.326;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, Function<String, String>> responses =
+            Collections.synchronizedMap(new LinkedHashMap<>());
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+
+    private volatile Duration latencyMedian = Duration.ZERO;
+    private volatile Duration latencyP99 = Duration.ZERO;
+    private volatile double errorRate;
+    private volatile List<Integer> errorStatuses = List.of(503);
+    private volatile Duration chunkDelay = Duration.ZERO;
+
+    /** Binds to {@code port} on the loopback interface; 0 picks a free port. */
+    public MockGroqServer(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        defaultResponses();
+    }
+
+    public MockGroqServer start() {
+        server.start();
+        log.info("Mock Groq server listening on {}", url());
+        return this;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /** The value for {@code groq.api.url}. */
+    public String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/openai/v1/chat/completions";
+    }
+
+    /** Response delay before the first byte: log-normal with this median and 99th percentile. */
+    public MockGroqServer latency(Duration median, Duration p99) {
+        this.latencyMedian = median;
+        this.latencyP99 = p99.compareTo(median) < 0 ? median : p99;
+        return this;
+    }
+
+    /** Fails this share of requests (0 to 1) with one of {@code statuses}, picked at random. */
+    public MockGroqServer errors(double rate, List<Integer> statuses) {
+        this.errorRate = rate;
+        this.errorStatuses = statuses.isEmpty() ? List.of(503) : List.copyOf(statuses);
+        return this;
+    }
+
+    public MockGroqServer chunkDelay(Duration delay) {
+        this.chunkDelay = delay;
+        return this;
+    }
+
+    /** Answers requests containing {@code fragment} with {@code content}, ahead of the defaults. */
+    public MockGroqServer respond(String fragment, String content) {
+        return respond(fragment, request -> content);
+    }
+
+    public MockGroqServer respond(String fragment, Function<String, String> content) {
+        synchronized (responses) {
+            Map<String, Function<String, String>> previous = new LinkedHashMap<>(responses);
+            previous.remove(fragment);
+            responses.clear();
+            responses.put(fragment, content);
+            responses.putAll(previous);
+        }
+        return this;
+    }
+
+    public long requestCount() {
+        return requests.get();
+    }
+
+    public long errorCount() {
+        return errors.get();
+    }
+
+    private void defaultResponses() {
+        responses.put("Categorize each of these", request -> {
+            Matcher m = BATCH_SIZE.matcher(request);
+            int n = m.find() ? Integer.parseInt(m.group(1)) : 1;
+            return "{\"categories\":[" + String.join(",", Collections.nCopies(n, "\"Food\"")) + "]}";
+        });
+        responses.put("Categorize this expense", request -> "Food");
+        responses.put("Parse this expense description", request ->
+                "{\"description\":\"Coffee\",\"amount\":3.50,\"date\":null,\"category\":\"Food\",\"currency\":\"EUR\"}");
+        responses.put("Parse this income description", request ->
+                "{\"description\":\"Monthly Salary\",\"amount\":1500.0,\"date\":null,\"category\":\"Salary\",\"currency\":\"EUR\"}");
+        responses.put("Extract expense data from this receipt", request ->
+                "{\"description\":\"Supermarket\",\"amount\":42.90,\"date\":null,\"category\":\"Groceries\",\"currency\":\"EUR\"}");
+        responses.put("generate 3 personalized financial insights", request ->
+                "{\"insights\":["
+                        + "{\"type\":\"trend\",\"title\":\"Food is rising\",\"message\":\"Food spend is up 12% on last month.\",\"icon\":\"trending-up-outline\"},"
+                        + "{\"type\":\"tip\",\"title\":\"Cook at home\",\"message\":\"Two home-cooked dinners a week would save about 40.\",\"icon\":\"bulb-outline\"},"
+                        + "{\"type\":\"anomaly\",\"title\":\"Large transport bill\",\"message\":\"Transport this month is twice your average.\",\"icon\":\"warning-outline\"}]}");
+        responses.put("suggest monthly budget limits", request ->
+                "{\"advice\":["
+                        + "{\"category\":\"Food\",\"currentMonthlySpend\":450,\"suggestedBudget\":380,\"reason\":\"Eating out twice less a week saves 70.\"},"
+                        + "{\"category\":\"Transport\",\"currentMonthlySpend\":120,\"suggestedBudget\":100,\"reason\":\"A monthly pass is cheaper than single tickets.\"}]}");
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        try {
+            String request = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            sleep(sampleLatency());
+
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            if (errorRate > 0 && random.nextDouble() < errorRate) {
+                errors.incrementAndGet();
+                List<Integer> statuses = errorStatuses;
+                send(exchange, statuses.get(random.nextInt(statuses.size())),
+                        "{\"error\":{\"message\":\"Injected failure\",\"type\":\"mock_error\"}}");
+                return;
+            }
+
+            Map<String, Object> body = objectMapper.readValue(request, new TypeReference<>() {});
+            String model = String.valueOf(body.getOrDefault("model", "mock"));
+            String content = answer(request);
+            Map<String, Object> usage = usage(request, content);
+            if (Boolean.TRUE.equals(body.get("stream"))) {
+                stream(exchange, model, content, usage);
+            } else {
+                Map<String, Object> completion = Map.of(
+                        "id", "chatcmpl-mock-" + requests.get(),
+                        "object", "chat.completion",
+                        "model", model,
+                        "choices", List.of(Map.of("index", 0, "finish_reason", "stop",
+                                "message", Map.of("role", "assistant", "content", content))),
+                        "usage", usage);
+                send(exchange, 200, objectMapper.writeValueAsString(completion));
+            }
+        } catch (IOException e) {
+            // The client went away, usually a cancelled stream
+            log.debug("Mock Groq exchange aborted: {}", e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private String answer(String request) {
+        synchronized (responses) {
+            for (Map.Entry<String, Function<String, String>> response : responses.entrySet()) {
+                if (request.contains(response.getKey())) return response.getValue().apply(request);
+            }
+        }
+        return CHAT_ANSWER;
+    }
+
+    private void stream(HttpExchange exchange, String model, String content, Map<String, Object> usage)
+            throws IOException, InterruptedException {
+        exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream out = exchange.getResponseBody();
+        writeChunk(out, model, Map.of("role", "assistant"), null, null);
+        List<String> words = words(content);
+        for (String word : words) {
+            sleep(chunkDelay);
+            writeChunk(out, model, Map.of("content", word), null, null);
+        }
+        writeChunk(out, model, Map.of(), "stop", usage);
+        out.write("data: [DONE]\n\n".getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private void writeChunk(OutputStream out, String model, Map<String, Object> delta,
+                            String finishReason, Map<String, Object> usage) throws IOException {
+        Map<String, Object> choice = new LinkedHashMap<>();
+        choice.put("index", 0);
+        choice.put("delta", delta);
+        choice.put("finish_reason", finishReason);
+        Map<String, Object> chunk = new LinkedHashMap<>();
+        chunk.put("object", "chat.completion.chunk");
+        chunk.put("model", model);
+        chunk.put("choices", List.of(choice));
+        if (usage != null) chunk.put("x_groq", Map.of("usage", usage));
+        out.write(("data: " + objectMapper.writeValueAsString(chunk) + "\n\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    /** Splits after each space, so the chunks concatenate back to {@code content}. */
+    private static List<String> words(String content) {
+        List<String> words = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i < content.length(); i++) {
+            if (content.charAt(i) == ' ') {
+                words.add(content.substring(start, i + 1));
+                start = i + 1;
+            }
+        }
+        if (start < content.length()) words.add(content.substring(start));
+        return words;
+    }
+
+    private static Map<String, Object> usage(String request, String content) {
+        int prompt = ContextAssembler.estimateTokens(request);
+        int completion = ContextAssembler.estimateTokens(content);
+        return Map.of("prompt_tokens", prompt, "completion_tokens", completion, "total_tokens", prompt + completion);
+    }
+
+    private void send(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private Duration sampleLatency() {
+        Duration median = latencyMedian;
+        if (median.isZero()) return Duration.ZERO;
+        double sigma = Math.log((double) latencyP99.toNanos() / median.toNanos()) / Z_99;
+        double nanos = median.toNanos() * Math.exp(sigma * ThreadLocalRandom.current().nextGaussian());
+        return Duration.ofNanos((long) nanos);
+    }
+
+    private static void sleep(Duration duration) throws InterruptedException {
+        if (!duration.isZero()) Thread.sleep(duration);
+    }
+}
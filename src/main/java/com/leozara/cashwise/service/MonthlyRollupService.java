@@ -0,0 +1,137 @@
+package com.leozara.cashwise.service;
+
+import com.leozara.cashwise.model.Expense;
+import com.leozara.cashwise.model.Income;
+import com.leozara.cashwise.model.MonthlyRollup;
+import com.leozara.cashwise.repository.MonthlyRollupRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Keeps {@code monthly_rollups} in step with expenses and incomes. Every write path calls it inside its
+ * own transaction with the entries it added or removed, so the rollups commit or roll back with the rows.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MonthlyRollupService {
+
+    /** Buckets are applied in key order so concurrent bulk writes never lock them in opposite orders. */
+    private static final Comparator<MonthlyRollup.Key> KEY_ORDER = Comparator
+            .comparing(MonthlyRollup.Key::getHouseholdId)
+            .thenComparing(MonthlyRollup.Key::getMonth)
+            .thenComparing(MonthlyRollup.Key::getCategory)
+            .thenComparing(MonthlyRollup.Key::getCurrency)
+            .thenComparing(MonthlyRollup.Key::getKind);
+
+    private final MonthlyRollupRepository rollupRepository;
+
+    /** The part of an expense or income that determines its bucket and contribution. */
+    public record Entry(String kind, Long householdId, LocalDate date, String category,
+                        String currency, BigDecimal amount) {
+
+        public static Entry of(Expense expense) {
+            return new Entry(MonthlyRollup.EXPENSE, expense.getHouseholdId(), expense.getDate(),
+                    expense.getCategory() != null ? expense.getCategory() : "General",
+                    expense.getCurrency(), expense.getAmount());
+        }
+
+        public static Entry of(Income income) {
+            return new Entry(MonthlyRollup.INCOME, income.getHouseholdId(), income.getDate(),
+                    income.getCategory() != null ? income.getCategory() : "Other",
+                    income.getCurrency(), income.getAmount());
+        }
+
+        private MonthlyRollup.Key key() {
+            return new MonthlyRollup.Key(householdId, date.withDayOfMonth(1), category, currency, kind);
+        }
+    }
+
+    private record Delta(BigDecimal total, long entries) {
+        Delta plus(Delta other) {
+            return new Delta(total.add(other.total), entries + other.entries);
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void add(Collection<Entry> entries) {
+        Map<MonthlyRollup.Key, Delta> deltas = new TreeMap<>(KEY_ORDER);
+        entries.forEach(e -> collect(deltas, e, 1));
+        apply(deltas);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void add(Entry entry) {
+        add(List.of(entry));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void remove(Entry entry) {
+        Map<MonthlyRollup.Key, Delta> deltas = new TreeMap<>(KEY_ORDER);
+        collect(deltas, entry, -1);
+        apply(deltas);
+    }
+
+    /** Moves an updated entry's contribution; a no-op when nothing that affects the rollups changed. */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void replace(Entry before, Entry after) {
+        Map<MonthlyRollup.Key, Delta> deltas = new TreeMap<>(KEY_ORDER);
+        collect(deltas, before, -1);
+        collect(deltas, after, 1);
+        apply(deltas);
+    }
+
+    /** Subtracts everything a user added, before their rows are deleted in bulk with the account. */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void removeAllOfUser(Long userId) {
+        rollupRepository.subtractExpensesOfUser(userId);
+        rollupRepository.subtractIncomesOfUser(userId);
+        rollupRepository.deleteAllEmpty();
+    }
+
+    /** Recomputes one household's rollups from its expenses and incomes. */
+    @Transactional
+    public void rebuild(Long householdId) {
+        rollupRepository.deleteForRebuild(householdId);
+        rollupRepository.rebuildExpenses(householdId);
+        rollupRepository.rebuildIncomes(householdId);
+    }
+
+    /** Recomputes every household's rollups from scratch. */
+    @Transactional
+    public void rebuildAll() {
+        log.info("Rebuilding monthly rollups for all households...");
+        rebuild(null);
+        log.info("Monthly rollups rebuilt: {} buckets", rollupRepository.count());
+    }
+
+    private void collect(Map<MonthlyRollup.Key, Delta> deltas, Entry entry, int sign) {
+        if (entry.householdId() == null) return; // legacy rows outside any household are not rolled up
+        BigDecimal amount = sign < 0 ? entry.amount().negate() : entry.amount();
+        deltas.merge(entry.key(), new Delta(amount, sign), Delta::plus);
+    }
+
+    private void apply(Map<MonthlyRollup.Key, Delta> deltas) {
+        Set<Long> shrunk = new HashSet<>();
+        deltas.forEach((key, delta) -> {
+            if (delta.entries() == 0 && delta.total().signum() == 0) return;
+            rollupRepository.addDelta(key.getHouseholdId(), key.getMonth(), key.getCategory(),
+                    key.getCurrency(), key.getKind(), delta.total(), delta.entries());
+            if (delta.entries() < 0) shrunk.add(key.getHouseholdId());
+        });
+        shrunk.forEach(rollupRepository::deleteEmpty);
+    }
+}
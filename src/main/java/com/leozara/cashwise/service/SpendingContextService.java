@@ -0,0 +1,339 @@
+package com.leozara.cashwise.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.leozara.cashwise.dto.AnalyticsSummaryResponse;
+import com.leozara.cashwise.dto.MonthlyTotalDto;
+import com.leozara.cashwise.repository.SubscriptionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.TextStyle;
+import java.util.*;
+
+/**
+ * The text describing a household's last three months of money that chat, insights and budget
+ * advice send to Groq.
+ *
+ * <p>The aggregates behind it (monthly totals per category and stored currency, active subscriptions)
+ * are kept per household as a {@link Snapshot} until the household's data version changes or the
+ * day rolls over. Display currency and exchange rates only affect rendering, so a ten-turn chat
+ * session queries the database once, whatever currency each turn asks for.
+ *
+ * <p>The rendered text is kept within {@code app.spending-context.max-tokens} (estimated): the current
+ * month and the totals are always there, while the long tail of categories, income sources and
+ * subscriptions is folded into summary lines first (see {@link ContextAssembler}).
+ */
+@Service
+public class SpendingContextService {
+
+    private static final DateTimeFormatter MONTH_KEY = DateTimeFormatter.ofPattern("yyyy-MM");
+
+    /** What the context is rendered from; amounts are in their stored currencies. */
+    record Snapshot(LocalDate today, List<MonthlyTotalDto> incomes, List<MonthlyTotalDto> expenses,
+                    List<SubscriptionLine> subscriptions) {}
+
+    record SubscriptionLine(String description, BigDecimal amount, String currency, String frequency) {}
+
+    private record Versioned(long version, Snapshot snapshot) {}
+
+    private final AnalyticsService analyticsService;
+    private final SubscriptionRepository subscriptionRepository;
+    private final HouseholdMembershipResolver memberships;
+    private final HouseholdDataVersions dataVersions;
+    private final Cache<Long, Versioned> snapshots;
+    private final int maxTokens;
+
+    public SpendingContextService(AnalyticsService analyticsService,
+                                  SubscriptionRepository subscriptionRepository,
+                                  HouseholdMembershipResolver memberships,
+                                  HouseholdDataVersions dataVersions,
+                                  @Value("${app.spending-context.max-households:10000}") long maxHouseholds,
+                                  @Value("${app.spending-context.max-tokens:1200}") int maxTokens) {
+        this.analyticsService = analyticsService;
+        this.subscriptionRepository = subscriptionRepository;
+        this.memberships = memberships;
+        this.dataVersions = dataVersions;
+        this.snapshots = Caffeine.newBuilder().maximumSize(maxHouseholds).build();
+        this.maxTokens = maxTokens;
+    }
+
+    public String build(Long userId, Map<String, Double> exchangeRates, String userCurrency) {
+        return render(snapshot(userId), exchangeRates, userCurrency);
+    }
+
+    Snapshot snapshot(Long userId) {
+        Long householdId = memberships.getHouseholdId(userId);
+        // Read before loading: a write committed meanwhile leaves the entry tagged with the old version
+        long version = dataVersions.version(householdId);
+        LocalDate today = LocalDate.now();
+        Versioned cached = snapshots.getIfPresent(householdId);
+        if (cached != null && cached.version() == version && cached.snapshot().today().equals(today)) {
+            return cached.snapshot();
+        }
+
+        AnalyticsSummaryResponse summary = analyticsService.getSummary(userId, today.minusMonths(3), today);
+        List<SubscriptionLine> subscriptions = subscriptionRepository.findByActiveTrueAndHouseholdId(householdId).stream()
+                .map(s -> new SubscriptionLine(s.getDescription(), s.getAmount(), s.getCurrency(), s.getFrequency()))
+                .toList();
+        Snapshot snapshot = new Snapshot(today, List.copyOf(summary.getIncomes()), List.copyOf(summary.getExpenses()),
+                subscriptions);
+        snapshots.put(householdId, new Versioned(version, snapshot));
+        return snapshot;
+    }
+
+    String render(Snapshot snapshot, Map<String, Double> exchangeRates, String userCurrency) {
+        LocalDate today = snapshot.today();
+        final String displayCurrency = (userCurrency != null && !userCurrency.isBlank())
+                ? userCurrency.toUpperCase() : "EUR";
+        final double eurToDisplay = (!"EUR".equals(displayCurrency) && exchangeRates != null
+                && exchangeRates.containsKey(displayCurrency)
+                && isPlausibleRate(exchangeRates.get(displayCurrency)))
+                ? exchangeRates.get(displayCurrency)
+                : 1.0;
+
+        String currentMonthKey = today.format(MONTH_KEY);
+
+        // ── Aggregate incomes (each monthly total converted from its own stored currency) ──
+        double totalIncome = 0, currentMonthIncome = 0;
+        Map<String, Double> incomeByMonth = new TreeMap<>();
+        Map<String, Double> incomeByCategory = new TreeMap<>();
+        for (MonthlyTotalDto t : snapshot.incomes()) {
+            double amt = toDisplay(t.getTotal().doubleValue(), t.getCurrency(), exchangeRates, displayCurrency, eurToDisplay);
+            totalIncome += amt;
+            incomeByMonth.merge(t.getMonth(), amt, Double::sum);
+            incomeByCategory.merge(t.getCategory(), amt, Double::sum);
+            if (t.getMonth().equals(currentMonthKey)) currentMonthIncome += amt;
+        }
+
+        // ── Aggregate expenses (each monthly total converted from its own stored currency) ──
+        double totalExpenses = 0, currentMonthExpenses = 0;
+        Map<String, Double> expenseByMonth = new TreeMap<>();
+        Map<String, Double> expenseByCategory = new TreeMap<>();
+        for (MonthlyTotalDto t : snapshot.expenses()) {
+            double amt = toDisplay(t.getTotal().doubleValue(), t.getCurrency(), exchangeRates, displayCurrency, eurToDisplay);
+            totalExpenses += amt;
+            expenseByMonth.merge(t.getMonth(), amt, Double::sum);
+            expenseByCategory.merge(t.getCategory(), amt, Double::sum);
+            if (t.getMonth().equals(currentMonthKey)) currentMonthExpenses += amt;
+        }
+
+        // ── Subscriptions monthly cost ──
+        List<SubscriptionLine> subscriptions = snapshot.subscriptions();
+        double[] subscriptionAmounts = new double[subscriptions.size()];
+        double monthlySubscriptionCost = 0;
+        for (int i = 0; i < subscriptions.size(); i++) {
+            SubscriptionLine s = subscriptions.get(i);
+            subscriptionAmounts[i] = toDisplay(s.amount().doubleValue(), s.currency(), exchangeRates, displayCurrency, eurToDisplay);
+            monthlySubscriptionCost += monthlyCost(s, subscriptionAmounts[i]);
+        }
+
+        Set<String> allMonths = new TreeSet<>();
+        allMonths.addAll(incomeByMonth.keySet());
+        allMonths.addAll(expenseByMonth.keySet());
+        int numMonths = Math.max(allMonths.size(), 1);
+
+        String monthLabel = today.getMonth().getDisplayName(TextStyle.FULL, Locale.ENGLISH) + " " + today.getYear();
+        String cur = displayCurrency + " ";
+        ContextAssembler context = new ContextAssembler();
+
+        context.required("Today's date: " + today + "\n" +
+                "User's display currency: " + displayCurrency + "\n" +
+                "Data covers: last 3 months\n\n");
+
+        // Current month — this is the most important section for "how much this month" questions
+        context.required("=== CURRENT MONTH (" + monthLabel + ", in progress) ===\n" +
+                "Income this month:   " + cur + money(currentMonthIncome) + "\n" +
+                "Expenses this month: " + cur + money(currentMonthExpenses) + "\n" +
+                "Net this month:      " + cur + money(currentMonthIncome - currentMonthExpenses) + "\n\n");
+
+        // 3-month summary
+        context.required("=== 3-MONTH SUMMARY ===\n" +
+                "Total income:         " + cur + money(totalIncome) + "\n" +
+                "Total expenses:       " + cur + money(totalExpenses) + "\n" +
+                "Net savings:          " + cur + money(totalIncome - totalExpenses) + "\n" +
+                "Avg monthly income:   " + cur + money(totalIncome / numMonths) + "\n" +
+                "Avg monthly expenses: " + cur + money(totalExpenses / numMonths) + "\n\n");
+
+        // Month-by-month breakdown
+        if (!allMonths.isEmpty()) {
+            StringBuilder sb = new StringBuilder("=== MONTHLY BREAKDOWN ===\n");
+            for (String month : allMonths) {
+                double mInc = incomeByMonth.getOrDefault(month, 0.0);
+                double mExp = expenseByMonth.getOrDefault(month, 0.0);
+                sb.append(month)
+                        .append(": Income ").append(cur).append(money(mInc))
+                        .append(" | Expenses ").append(cur).append(money(mExp))
+                        .append(" | Net ").append(cur).append(money(mInc - mExp));
+                if (month.equals(currentMonthKey)) sb.append(" ← current month");
+                sb.append('\n');
+            }
+            context.optional(4, sb.append('\n').toString(), "");
+        }
+
+        // Top expense categories matter most after the totals; the tail is folded into one line
+        if (!expenseByCategory.isEmpty()) {
+            List<Map.Entry<String, Double>> ranked = byValueDescending(expenseByCategory);
+            context.optional(5,
+                    expenseCategories(ranked, ranked.size(), cur, numMonths),
+                    expenseCategories(ranked, 8, cur, numMonths),
+                    expenseCategories(ranked, 3, cur, numMonths));
+        }
+
+        // Income by source/category
+        if (!incomeByCategory.isEmpty()) {
+            List<Map.Entry<String, Double>> ranked = byValueDescending(incomeByCategory);
+            context.optional(3,
+                    incomeSources(ranked, ranked.size(), cur),
+                    incomeSources(ranked, 3, cur),
+                    "");
+        }
+
+        // Subscriptions; when the list has to be cut only the five costliest per month stay
+        if (!subscriptions.isEmpty()) {
+            String header = "=== ACTIVE SUBSCRIPTIONS (" + subscriptions.size() + " total, " +
+                    cur + money(monthlySubscriptionCost) + "/month) ===\n";
+            List<Integer> all = new ArrayList<>();
+            for (int i = 0; i < subscriptions.size(); i++) all.add(i);
+            List<Integer> costliest = all.stream()
+                    .sorted(Comparator.comparingDouble((Integer i) -> monthlyCost(subscriptions.get(i), subscriptionAmounts[i])).reversed())
+                    .limit(5)
+                    .sorted()
+                    .toList();
+            context.optional(2,
+                    subscriptionList(header, subscriptions, subscriptionAmounts, all, cur),
+                    subscriptionList(header, subscriptions, subscriptionAmounts, costliest, cur),
+                    header + "\n");
+        }
+
+        // Exchange rates, only for currencies that occur in the data: clients send every rate they know
+        Set<String> usedCurrencies = usedCurrencies(snapshot, displayCurrency);
+        if (exchangeRates != null && !exchangeRates.isEmpty()) {
+            StringBuilder sb = new StringBuilder();
+            exchangeRates.entrySet().stream()
+                    .filter(e -> usedCurrencies.contains(e.getKey().toUpperCase()) && isPlausibleRate(e.getValue()))
+                    .sorted(Map.Entry.comparingByKey())
+                    .forEach(e -> sb.append("  ").append(e.getKey()).append(": ").append(decimal(e.getValue(), 4)).append('\n'));
+            if (!sb.isEmpty()) {
+                context.optional(1, "=== EXCHANGE RATES (1 EUR = ...) ===\n" + sb +
+                        "Use ONLY these rates for currency conversions. Do not use your own training data rates.\n\n", "");
+            }
+        }
+
+        context.required("Always express amounts in " + displayCurrency + " in your response.\n");
+        return context.assemble(maxTokens);
+    }
+
+    private static List<Map.Entry<String, Double>> byValueDescending(Map<String, Double> totals) {
+        return totals.entrySet().stream()
+                .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
+                .toList();
+    }
+
+    private static String expenseCategories(List<Map.Entry<String, Double>> ranked, int limit, String cur, int numMonths) {
+        StringBuilder sb = new StringBuilder("=== EXPENSES BY CATEGORY (3 months) ===\n");
+        double other = 0;
+        for (int i = 0; i < ranked.size(); i++) {
+            Map.Entry<String, Double> e = ranked.get(i);
+            if (i >= limit) {
+                other += e.getValue();
+                continue;
+            }
+            sb.append("- ").append(e.getKey()).append(": ").append(cur).append(money(e.getValue()))
+                    .append(" (avg ").append(cur).append(money(e.getValue() / numMonths)).append("/month)\n");
+        }
+        if (ranked.size() > limit) {
+            sb.append("- ").append(ranked.size() - limit).append(" other categories: ").append(cur).append(money(other))
+                    .append(" (avg ").append(cur).append(money(other / numMonths)).append("/month)\n");
+        }
+        return sb.append('\n').toString();
+    }
+
+    private static String incomeSources(List<Map.Entry<String, Double>> ranked, int limit, String cur) {
+        StringBuilder sb = new StringBuilder("=== INCOME SOURCES (3 months) ===\n");
+        double other = 0;
+        for (int i = 0; i < ranked.size(); i++) {
+            Map.Entry<String, Double> e = ranked.get(i);
+            if (i >= limit) {
+                other += e.getValue();
+                continue;
+            }
+            sb.append("- ").append(e.getKey()).append(": ").append(cur).append(money(e.getValue())).append('\n');
+        }
+        if (ranked.size() > limit) {
+            sb.append("- ").append(ranked.size() - limit).append(" other sources: ").append(cur).append(money(other)).append('\n');
+        }
+        return sb.append('\n').toString();
+    }
+
+    private static String subscriptionList(String header, List<SubscriptionLine> subscriptions, double[] amounts,
+                                           List<Integer> shown, String cur) {
+        StringBuilder sb = new StringBuilder(header);
+        for (int i : shown) {
+            SubscriptionLine s = subscriptions.get(i);
+            sb.append("- ").append(s.description()).append(": ").append(cur).append(money(amounts[i]))
+                    .append(" (").append(s.frequency()).append(")\n");
+        }
+        if (shown.size() < subscriptions.size()) {
+            sb.append("- and ").append(subscriptions.size() - shown.size()).append(" smaller ones\n");
+        }
+        return sb.append('\n').toString();
+    }
+
+    private static double monthlyCost(SubscriptionLine subscription, double amount) {
+        return "YEARLY".equals(subscription.frequency()) ? amount / 12.0 : amount;
+    }
+
+    private static Set<String> usedCurrencies(Snapshot snapshot, String displayCurrency) {
+        Set<String> currencies = new HashSet<>();
+        currencies.add(displayCurrency);
+        snapshot.incomes().forEach(t -> { if (t.getCurrency() != null) currencies.add(t.getCurrency().toUpperCase()); });
+        snapshot.expenses().forEach(t -> { if (t.getCurrency() != null) currencies.add(t.getCurrency().toUpperCase()); });
+        snapshot.subscriptions().forEach(s -> { if (s.currency() != null) currencies.add(s.currency().toUpperCase()); });
+        return currencies;
+    }
+
+    /** Same digits as {@code %.2f}, without the formatter and independent of the default locale. */
+    private static String money(double amount) {
+        return decimal(amount, 2);
+    }
+
+    private static String decimal(double value, int scale) {
+        return BigDecimal.valueOf(value).setScale(scale, RoundingMode.HALF_UP).toPlainString();
+    }
+
+    /**
+     * Converts an amount from its stored currency to the user's display currency.
+     * All conversions go through EUR as the base (rates map is "1 EUR = X").
+     */
+    private double toDisplay(double amount, String storedCurrency,
+                             Map<String, Double> rates, String displayCurrency, double eurToDisplay) {
+        if (storedCurrency == null) return amount * eurToDisplay;
+        String stored = storedCurrency.toUpperCase();
+        String display = displayCurrency.toUpperCase();
+        if (stored.equals(display)) return amount;
+
+        // Convert stored → EUR
+        double amountInEur;
+        if ("EUR".equals(stored)) {
+            amountInEur = amount;
+        } else {
+            Double eurToStored = (rates != null) ? rates.get(stored) : null;
+            if (eurToStored == null || !isPlausibleRate(eurToStored)) return amount;
+            amountInEur = amount / eurToStored;
+        }
+
+        // Convert EUR → display
+        if ("EUR".equals(display)) return amountInEur;
+        return amountInEur * eurToDisplay;
+    }
+
+    /** Reject exchange rates outside any realistic currency pair range (0.0001 – 100000). */
+    private boolean isPlausibleRate(Double rate) {
+        return rate != null && rate > 0.0001 && rate < 100_000;
+    }
+}
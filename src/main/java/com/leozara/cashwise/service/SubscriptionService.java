@@ -1,29 +1,32 @@
 package com.leozara.cashwise.service;
 
+import com.leozara.cashwise.dto.CursorPage;
 import com.leozara.cashwise.dto.ExpenseResponse;
 import com.leozara.cashwise.dto.SubscriptionCreateRequest;
 import com.leozara.cashwise.dto.SubscriptionResponse;
 import com.leozara.cashwise.dto.SubscriptionUpdateRequest;
 import com.leozara.cashwise.exception.ResourceNotFoundException;
 import com.leozara.cashwise.model.Expense;
-import com.leozara.cashwise.model.HouseholdMember;
 import com.leozara.cashwise.model.Subscription;
+import com.leozara.cashwise.model.SyncTombstone;
 import com.leozara.cashwise.repository.ExpenseRepository;
-import com.leozara.cashwise.repository.HouseholdMemberRepository;
 import com.leozara.cashwise.repository.SubscriptionRepository;
-import com.leozara.cashwise.repository.UserRepository;
+import com.leozara.cashwise.repository.SyncTombstoneRepository;
+import com.leozara.cashwise.repository.UserRepository.AuthorView;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.stream.Collectors;
 
@@ -34,16 +37,21 @@ public class SubscriptionService {
 
     private final SubscriptionRepository subscriptionRepository;
     private final ExpenseRepository expenseRepository;
-    private final HouseholdMemberRepository memberRepository;
-    private final UserRepository userRepository;
-
-    private Long getHouseholdId(Long userId) {
-        return memberRepository.findByUserId(userId)
-                .orElseThrow(() -> new IllegalStateException("You are not part of any household"))
-                .getHouseholdId();
+    private final HouseholdMembershipResolver memberships;
+    private final AuthorResolver authorResolver;
+    private final MonthlyRollupService rollups;
+    private final SyncTombstoneRepository tombstoneRepository;
+    private final HouseholdDataVersions dataVersions;
+
+    private List<ExpenseResponse> toExpenseResponses(List<Expense> expenses) {
+        Map<Long, AuthorView> authors = authorResolver.resolve(
+                expenses.stream().map(Expense::getUserId).toList());
+        return expenses.stream()
+                .map(e -> toExpenseResponse(e, authors.get(e.getUserId())))
+                .collect(Collectors.toList());
     }
 
-    private ExpenseResponse toExpenseResponse(Expense expense) {
+    private ExpenseResponse toExpenseResponse(Expense expense, AuthorView author) {
         ExpenseResponse resp = new ExpenseResponse();
         resp.setId(expense.getId());
         resp.setDescription(expense.getDescription());
@@ -51,18 +59,32 @@ public class SubscriptionService {
         resp.setCurrency(expense.getCurrency());
         resp.setDate(expense.getDate());
         resp.setCategory(expense.getCategory());
+        resp.setCategoryPending(expense.isCategoryPending());
         resp.setGroupId(expense.getGroupId());
         resp.setUserId(expense.getUserId());
         resp.setHouseholdId(expense.getHouseholdId());
         resp.setCreatedAt(expense.getCreatedAt());
-        userRepository.findById(expense.getUserId()).ifPresent(u -> {
-            resp.setAddedByName(u.getName());
-            resp.setAddedByUsername(u.getUsername());
-        });
+        resp.setUpdatedAt(expense.getUpdatedAt());
+        if (author != null) {
+            resp.setAddedByName(author.getName());
+            resp.setAddedByUsername(author.getUsername());
+        }
         return resp;
     }
 
     private SubscriptionResponse toResponse(Subscription sub) {
+        return toResponses(List.of(sub)).get(0);
+    }
+
+    private List<SubscriptionResponse> toResponses(List<Subscription> subscriptions) {
+        Map<Long, AuthorView> authors = authorResolver.resolve(
+                subscriptions.stream().map(Subscription::getUserId).toList());
+        return subscriptions.stream()
+                .map(s -> toResponse(s, authors.get(s.getUserId())))
+                .collect(Collectors.toList());
+    }
+
+    private SubscriptionResponse toResponse(Subscription sub, AuthorView author) {
         SubscriptionResponse resp = new SubscriptionResponse();
         resp.setId(sub.getId());
         resp.setDescription(sub.getDescription());
@@ -76,57 +98,78 @@ public class SubscriptionService {
         resp.setUserId(sub.getUserId());
         resp.setHouseholdId(sub.getHouseholdId());
         resp.setCreatedAt(sub.getCreatedAt());
-        userRepository.findById(sub.getUserId()).ifPresent(u -> {
-            resp.setAddedByName(u.getName());
-            resp.setAddedByUsername(u.getUsername());
-        });
-        return resp;
-    }
-
-    private void checkCanEdit(Long currentUserId, Subscription sub) {
-        HouseholdMember member = memberRepository.findByUserId(currentUserId)
-                .orElseThrow(() -> new AccessDeniedException("Not a household member"));
-        if (!"OWNER".equals(member.getRole()) && !currentUserId.equals(sub.getUserId())) {
-            throw new AccessDeniedException("You can only modify your own entries");
+        resp.setUpdatedAt(sub.getUpdatedAt());
+        if (author != null) {
+            resp.setAddedByName(author.getName());
+            resp.setAddedByUsername(author.getUsername());
         }
+        return resp;
     }
 
     public List<SubscriptionResponse> getAllSubscriptions(Long userId) {
-        Long householdId = getHouseholdId(userId);
-        return subscriptionRepository.findByHouseholdId(householdId).stream()
-                .map(this::toResponse).collect(Collectors.toList());
+        Long householdId = memberships.getHouseholdId(userId);
+        return toResponses(subscriptionRepository.findByHouseholdId(householdId));
     }
 
     public Page<SubscriptionResponse> getAllSubscriptions(Long userId, Pageable pageable) {
-        Long householdId = getHouseholdId(userId);
+        Long householdId = memberships.getHouseholdId(userId);
         Page<Subscription> page = subscriptionRepository.findByHouseholdId(householdId, pageable);
-        List<SubscriptionResponse> content = page.getContent().stream()
-                .map(this::toResponse).collect(Collectors.toList());
-        return new PageImpl<>(content, pageable, page.getTotalElements());
+        return new PageImpl<>(toResponses(page.getContent()), pageable, page.getTotalElements());
+    }
+
+    /** Keyset page ordered by (description, id) ascending; no total count is computed. */
+    public CursorPage<SubscriptionResponse> getSubscriptionsAfter(Long userId, String cursor, int size) {
+        Long householdId = memberships.getHouseholdId(userId);
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<Subscription> rows = after == null
+                ? subscriptionRepository.findKeysetFirstPage(householdId, limit)
+                : subscriptionRepository.findKeysetPageAfter(householdId, after.key(), after.id(), limit);
+
+        String next = null;
+        if (rows.size() > size) {
+            rows = rows.subList(0, size);
+            Subscription last = rows.get(size - 1);
+            next = KeysetCursor.of(last.getDescription(), last.getId()).encode();
+        }
+        return new CursorPage<>(toResponses(rows), next);
     }
 
     public List<SubscriptionResponse> getActiveSubscriptions(Long userId) {
-        Long householdId = getHouseholdId(userId);
-        return subscriptionRepository.findByActiveTrueAndHouseholdId(householdId).stream()
-                .map(this::toResponse).collect(Collectors.toList());
+        Long householdId = memberships.getHouseholdId(userId);
+        return toResponses(subscriptionRepository.findByActiveTrueAndHouseholdId(householdId));
+    }
+
+    /** Subscriptions created or modified after {@code since}, for delta sync. */
+    public List<SubscriptionResponse> getSubscriptionsChangedSince(LocalDateTime since, Long userId) {
+        Long householdId = memberships.getHouseholdId(userId);
+        return toResponses(subscriptionRepository.findByHouseholdIdAndUpdatedAtAfter(householdId, since));
     }
 
     @Transactional
     public SubscriptionResponse createSubscription(SubscriptionCreateRequest request, Long userId) {
-        return toResponse(subscriptionRepository.save(buildNewSubscription(request, userId)));
+        Subscription saved = subscriptionRepository.save(buildNewSubscription(request, userId));
+        dataVersions.bump(saved.getHouseholdId());
+        return toResponse(saved);
     }
 
     @Transactional
     public List<SubscriptionResponse> createSubscriptions(List<SubscriptionCreateRequest> requests, Long userId) {
-        List<SubscriptionResponse> results = new ArrayList<>(requests.size());
+        Long householdId = memberships.getHouseholdId(userId);
+        List<Subscription> entries = new ArrayList<>(requests.size());
         for (SubscriptionCreateRequest request : requests) {
-            results.add(toResponse(subscriptionRepository.save(buildNewSubscription(request, userId))));
+            entries.add(buildNewSubscription(request, userId, householdId));
         }
-        return results;
+        List<Subscription> saved = subscriptionRepository.saveAll(entries);
+        dataVersions.bump(householdId);
+        return toResponses(saved);
     }
 
     private Subscription buildNewSubscription(SubscriptionCreateRequest request, Long userId) {
-        Long householdId = getHouseholdId(userId);
+        return buildNewSubscription(request, userId, memberships.getHouseholdId(userId));
+    }
+
+    private Subscription buildNewSubscription(SubscriptionCreateRequest request, Long userId, Long householdId) {
         Subscription subscription = new Subscription();
         subscription.setDescription(request.getDescription());
         subscription.setAmount(request.getAmount());
@@ -146,10 +189,10 @@ public class SubscriptionService {
 
     @Transactional
     public SubscriptionResponse updateSubscription(Long id, SubscriptionUpdateRequest details, Long userId) {
-        Long householdId = getHouseholdId(userId);
+        Long householdId = memberships.getHouseholdId(userId);
         Subscription subscription = subscriptionRepository.findByIdAndHouseholdId(id, householdId)
                 .orElseThrow(() -> new ResourceNotFoundException("Subscription not found with ID: " + id));
-        checkCanEdit(userId, subscription);
+        memberships.checkCanEdit(userId, subscription.getUserId());
 
         String previousFrequency = subscription.getFrequency();
         Integer previousDayOfMonth = subscription.getDayOfMonth();
@@ -174,24 +217,27 @@ public class SubscriptionService {
             subscription.setNextDueDate(calculateNextDueDate(subscription));
         }
 
+        dataVersions.bump(householdId);
         return toResponse(subscriptionRepository.save(subscription));
     }
 
     @Transactional
     public void deleteSubscription(Long id, Long userId) {
-        Long householdId = getHouseholdId(userId);
+        Long householdId = memberships.getHouseholdId(userId);
         Subscription subscription = subscriptionRepository.findByIdAndHouseholdId(id, householdId)
                 .orElseThrow(() -> new ResourceNotFoundException("Subscription not found with ID: " + id));
-        checkCanEdit(userId, subscription);
+        memberships.checkCanEdit(userId, subscription.getUserId());
         subscriptionRepository.delete(subscription);
+        tombstoneRepository.save(new SyncTombstone(householdId, SyncTombstone.SUBSCRIPTION, id));
+        dataVersions.bump(householdId);
     }
 
     @Transactional
     public SubscriptionResponse toggleActive(Long id, Long userId) {
-        Long householdId = getHouseholdId(userId);
+        Long householdId = memberships.getHouseholdId(userId);
         Subscription subscription = subscriptionRepository.findByIdAndHouseholdId(id, householdId)
                 .orElseThrow(() -> new ResourceNotFoundException("Subscription not found with ID: " + id));
-        checkCanEdit(userId, subscription);
+        memberships.checkCanEdit(userId, subscription.getUserId());
 
         subscription.setActive(!subscription.getActive());
 
@@ -199,17 +245,17 @@ public class SubscriptionService {
             subscription.setNextDueDate(calculateNextDueDate(subscription));
         }
 
+        dataVersions.bump(householdId);
         return toResponse(subscriptionRepository.save(subscription));
     }
 
     @Transactional
     public List<ExpenseResponse> processSubscriptions(Long userId) {
         LocalDate today = LocalDate.now();
-        Long householdId = getHouseholdId(userId);
+        Long householdId = memberships.getHouseholdId(userId);
         List<Subscription> dueSubscriptions =
                 subscriptionRepository.findByActiveTrueAndNextDueDateLessThanEqualAndHouseholdId(today, householdId);
-        return processDueSubscriptions(dueSubscriptions).stream()
-                .map(this::toExpenseResponse).collect(Collectors.toList());
+        return toExpenseResponses(processDueSubscriptions(dueSubscriptions));
     }
 
     @Transactional
@@ -231,6 +277,7 @@ public class SubscriptionService {
                         sub.getId(), sub.getNextDueDate());
                 sub.setNextDueDate(calculateNextAfter(sub, sub.getNextDueDate()));
                 subscriptionRepository.save(sub);
+                dataVersions.bump(sub.getHouseholdId());
                 continue;
             }
 
@@ -252,8 +299,10 @@ public class SubscriptionService {
 
             sub.setNextDueDate(calculateNextAfter(sub, sub.getNextDueDate()));
             subscriptionRepository.save(sub);
+            dataVersions.bump(sub.getHouseholdId());
         }
 
+        rollups.add(createdExpenses.stream().map(MonthlyRollupService.Entry::of).toList());
         return createdExpenses;
     }
 
@@ -0,0 +1,78 @@
+package com.leozara.cashwise.service;
+
+import com.leozara.cashwise.dto.SyncResponse;
+import com.leozara.cashwise.model.SyncTombstone;
+import com.leozara.cashwise.repository.SyncTombstoneRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Delta sync for the household's expenses, incomes and subscriptions.
+ *
+ * <p>A token remembers when its snapshot was taken. The next call returns rows whose {@code updated_at}
+ * or tombstone falls after that time minus a small overlap, so writes that committed late are not missed;
+ * clients upsert by id, so the overlap only costs a few repeated rows.
+ */
+@Service
+@RequiredArgsConstructor
+public class SyncService {
+
+    private final ExpenseService expenseService;
+    private final IncomeService incomeService;
+    private final SubscriptionService subscriptionService;
+    private final SyncTombstoneRepository tombstoneRepository;
+    private final HouseholdMembershipResolver memberships;
+
+    @Value("${app.sync.overlap-seconds:60}")
+    private long overlapSeconds;
+
+    @Value("${app.sync.tombstone-retention-days:90}")
+    private long tombstoneRetentionDays;
+
+    @Transactional(readOnly = true)
+    public SyncResponse changesSince(Long userId, String token) {
+        Long householdId = memberships.getHouseholdId(userId);
+        LocalDateTime now = LocalDateTime.now();
+        SyncToken since = SyncToken.decode(token);
+        String next = new SyncToken(householdId, now).encode();
+
+        // No token, a token from another household, or one older than the tombstones we keep: start over
+        if (since == null || since.householdId() != householdId
+                || since.issuedAt().isBefore(now.minusDays(tombstoneRetentionDays))) {
+            return new SyncResponse(next, true,
+                    expenseService.getAllExpenses(userId),
+                    incomeService.getAllIncomes(userId),
+                    subscriptionService.getAllSubscriptions(userId),
+                    new SyncResponse.Deleted(List.of(), List.of(), List.of()));
+        }
+
+        LocalDateTime from = since.issuedAt().minus(Duration.ofSeconds(overlapSeconds));
+        Map<String, List<Long>> deleted = tombstoneRepository.findByHouseholdIdAndDeletedAtAfter(householdId, from)
+                .stream()
+                .collect(Collectors.groupingBy(SyncTombstone::getEntityType,
+                        Collectors.mapping(SyncTombstone::getEntityId, Collectors.toList())));
+
+        return new SyncResponse(next, false,
+                expenseService.getExpensesChangedSince(from, userId),
+                incomeService.getIncomesChangedSince(from, userId),
+                subscriptionService.getSubscriptionsChangedSince(from, userId),
+                new SyncResponse.Deleted(
+                        deleted.getOrDefault(SyncTombstone.EXPENSE, List.of()),
+                        deleted.getOrDefault(SyncTombstone.INCOME, List.of()),
+                        deleted.getOrDefault(SyncTombstone.SUBSCRIPTION, List.of())));
+    }
+
+    /** Drops tombstones no valid token can still ask for. */
+    @Transactional
+    public int pruneTombstones() {
+        return tombstoneRepository.deleteOlderThan(LocalDateTime.now().minusDays(tombstoneRetentionDays));
+    }
+}
@@ -0,0 +1,35 @@
+package com.leozara.cashwise.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+/**
+ * Delta-sync position: the household the token was issued for and the server time its snapshot was taken.
+ * Clients only ever see the encoded form and send it back unchanged.
+ */
+public record SyncToken(long householdId, LocalDateTime issuedAt) {
+
+    /** Returns null for a missing or empty token, meaning "send everything". */
+    public static SyncToken decode(String token) {
+        if (token == null || token.isBlank()) return null;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int sep = raw.indexOf(':');
+            if (sep <= 0) throw new IllegalArgumentException("Invalid sync token");
+            long millis = Long.parseLong(raw.substring(sep + 1));
+            return new SyncToken(Long.parseLong(raw.substring(0, sep)),
+                    LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC));
+        } catch (IllegalArgumentException e) {
+            // Also covers malformed Base64 and NumberFormatException
+            throw new IllegalArgumentException("Invalid sync token");
+        }
+    }
+
+    public String encode() {
+        String raw = householdId + ":" + issuedAt.toInstant(ZoneOffset.UTC).toEpochMilli();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
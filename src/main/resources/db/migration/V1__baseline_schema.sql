@@ -0,0 +1,106 @@
+-- Baseline schema: everything Hibernate used to create plus the former hand-run db/migration.sql.
+-- Databases that already have these tables are baselined at version 1 (spring.flyway.baseline-on-migrate)
+-- and skip this script; fresh databases are created from it.
+
+CREATE TABLE IF NOT EXISTS users (
+    id         BIGSERIAL PRIMARY KEY,
+    email      VARCHAR(255) NOT NULL UNIQUE,
+    password   VARCHAR(255) NOT NULL,
+    name       VARCHAR(100) NOT NULL,
+    username   VARCHAR(30) UNIQUE,
+    created_at TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS password_reset_tokens (
+    id         BIGSERIAL PRIMARY KEY,
+    token      VARCHAR(255) NOT NULL UNIQUE,
+    email      VARCHAR(255) NOT NULL,
+    expires_at TIMESTAMP   NOT NULL,
+    used       BOOLEAN     NOT NULL DEFAULT FALSE
+);
+CREATE INDEX IF NOT EXISTS idx_prt_email ON password_reset_tokens (email);
+
+-- Households (family / joint accounts)
+CREATE TABLE IF NOT EXISTS households (
+    id         BIGSERIAL PRIMARY KEY,
+    name       VARCHAR(100) NOT NULL,
+    created_by BIGINT NOT NULL REFERENCES users(id),
+    created_at TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+-- Members (UNIQUE user_id enforces max-1-household rule)
+CREATE TABLE IF NOT EXISTS household_members (
+    id           BIGSERIAL PRIMARY KEY,
+    household_id BIGINT NOT NULL REFERENCES households(id) ON DELETE CASCADE,
+    user_id      BIGINT NOT NULL REFERENCES users(id)      ON DELETE CASCADE,
+    role         VARCHAR(20) NOT NULL DEFAULT 'MEMBER',  -- OWNER | MEMBER
+    joined_at    TIMESTAMP NOT NULL DEFAULT NOW(),
+    UNIQUE(user_id)
+);
+
+CREATE TABLE IF NOT EXISTS household_invitations (
+    id           BIGSERIAL PRIMARY KEY,
+    household_id BIGINT NOT NULL REFERENCES households(id) ON DELETE CASCADE,
+    invited_by   BIGINT NOT NULL REFERENCES users(id),
+    email        VARCHAR(255) NOT NULL,
+    token        VARCHAR(255) UNIQUE NOT NULL,
+    status       VARCHAR(20) NOT NULL DEFAULT 'PENDING',  -- PENDING | ACCEPTED | DECLINED
+    expires_at   TIMESTAMP NOT NULL,
+    created_at   TIMESTAMP NOT NULL DEFAULT NOW()
+);
+CREATE INDEX IF NOT EXISTS idx_hi_token ON household_invitations(token);
+CREATE INDEX IF NOT EXISTS idx_hi_email  ON household_invitations(email);
+
+-- userId = addedBy, householdId = scoping key
+CREATE TABLE IF NOT EXISTS expenses (
+    id           BIGSERIAL PRIMARY KEY,
+    description  VARCHAR(255) NOT NULL,
+    amount       NUMERIC(12,2) NOT NULL,
+    currency     VARCHAR(3) NOT NULL,
+    date         DATE NOT NULL,
+    category     VARCHAR(50) NOT NULL,
+    group_id     VARCHAR(64),
+    user_id      BIGINT,
+    household_id BIGINT REFERENCES households(id) ON DELETE SET NULL,
+    created_at   TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS incomes (
+    id           BIGSERIAL PRIMARY KEY,
+    description  VARCHAR(255) NOT NULL,
+    amount       NUMERIC(12,2) NOT NULL,
+    currency     VARCHAR(3) NOT NULL,
+    date         DATE NOT NULL,
+    category     VARCHAR(50),
+    user_id      BIGINT,
+    household_id BIGINT REFERENCES households(id) ON DELETE SET NULL,
+    created_at   TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS subscriptions (
+    id            BIGSERIAL PRIMARY KEY,
+    description   VARCHAR(255) NOT NULL,
+    amount        NUMERIC(12,2) NOT NULL,
+    currency      VARCHAR(3) NOT NULL,
+    category      VARCHAR(50) NOT NULL,
+    frequency     VARCHAR(255) NOT NULL,  -- MONTHLY | YEARLY
+    day_of_month  INTEGER NOT NULL,
+    active        BOOLEAN NOT NULL DEFAULT TRUE,
+    next_due_date DATE NOT NULL,
+    user_id       BIGINT,
+    household_id  BIGINT REFERENCES households(id) ON DELETE SET NULL,
+    created_at    TIMESTAMP
+);
+
+-- Shared budgets (household-scoped, one per category per household)
+CREATE TABLE IF NOT EXISTS budgets (
+    id            BIGSERIAL PRIMARY KEY,
+    household_id  BIGINT NOT NULL REFERENCES households(id) ON DELETE CASCADE,
+    user_id       BIGINT NOT NULL REFERENCES users(id),
+    category      VARCHAR(50) NOT NULL,
+    monthly_limit DECIMAL(12,2) NOT NULL,
+    currency      VARCHAR(10) NOT NULL DEFAULT 'EUR',
+    created_at    TIMESTAMP NOT NULL DEFAULT NOW(),
+    UNIQUE(household_id, category)
+);
+CREATE INDEX IF NOT EXISTS idx_budgets_household ON budgets(household_id);
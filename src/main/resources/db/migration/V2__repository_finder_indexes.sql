@@ -0,0 +1,29 @@
+-- One index per access path used by the repository finders. Equality columns lead, the
+-- range/sort column follows, and id is the tie-breaker used by keyset pagination.
+
+-- ExpenseRepository: findByHouseholdId (+ paged by date), keyset pages, findByDateBetweenAndHouseholdId,
+-- findByDateAndHouseholdId, streamByHouseholdId
+CREATE INDEX IF NOT EXISTS idx_expenses_household_date ON expenses (household_id, date, id);
+-- findByCategoryAndHouseholdId
+CREATE INDEX IF NOT EXISTS idx_expenses_household_category ON expenses (household_id, category);
+-- findByCurrencyAndHouseholdId
+CREATE INDEX IF NOT EXISTS idx_expenses_household_currency ON expenses (household_id, currency);
+-- existsByGroupId (subscription de-duplication, installment groups)
+CREATE INDEX IF NOT EXISTS idx_expenses_group ON expenses (group_id) WHERE group_id IS NOT NULL;
+-- findBy...AndUserId, deleteByUserId
+CREATE INDEX IF NOT EXISTS idx_expenses_user_date ON expenses (user_id, date);
+
+-- IncomeRepository
+CREATE INDEX IF NOT EXISTS idx_incomes_household_date ON incomes (household_id, date, id);
+CREATE INDEX IF NOT EXISTS idx_incomes_household_currency ON incomes (household_id, currency);
+CREATE INDEX IF NOT EXISTS idx_incomes_user_date ON incomes (user_id, date);
+
+-- SubscriptionRepository: findByHouseholdId (+ paged/keyset by description), findByActiveTrueAndHouseholdId
+CREATE INDEX IF NOT EXISTS idx_subscriptions_household_description ON subscriptions (household_id, description, id);
+-- findByActiveTrueAndNextDueDateLessThanEqual[AndHouseholdId] (daily scheduler and manual processing)
+CREATE INDEX IF NOT EXISTS idx_subscriptions_active_due ON subscriptions (next_due_date, household_id) WHERE active;
+CREATE INDEX IF NOT EXISTS idx_subscriptions_user ON subscriptions (user_id);
+
+-- HouseholdMemberRepository.findByHouseholdId, HouseholdInvitationRepository.findByHouseholdId
+CREATE INDEX IF NOT EXISTS idx_hm_household ON household_members (household_id);
+CREATE INDEX IF NOT EXISTS idx_hi_household ON household_invitations (household_id);
@@ -0,0 +1,28 @@
+-- Per-household totals by calendar month, category and currency, maintained by the services on every
+-- expense/income write so dashboards and AI context never aggregate raw rows.
+-- kind: EXPENSE | INCOME
+CREATE TABLE IF NOT EXISTS monthly_rollups (
+    household_id BIGINT NOT NULL REFERENCES households(id) ON DELETE CASCADE,
+    month        DATE NOT NULL,  -- first day of the month
+    category     VARCHAR(50) NOT NULL,
+    currency     VARCHAR(3) NOT NULL,
+    kind         VARCHAR(10) NOT NULL,
+    total        NUMERIC(14,2) NOT NULL,
+    entries      BIGINT NOT NULL,
+    PRIMARY KEY (household_id, month, category, currency, kind)
+);
+
+INSERT INTO monthly_rollups (household_id, month, category, currency, kind, total, entries)
+SELECT household_id, CAST(date_trunc('month', date) AS DATE), category, currency, 'EXPENSE', SUM(amount), COUNT(*)
+FROM expenses
+WHERE household_id IS NOT NULL
+GROUP BY 1, 2, 3, 4
+ON CONFLICT DO NOTHING;
+
+INSERT INTO monthly_rollups (household_id, month, category, currency, kind, total, entries)
+SELECT household_id, CAST(date_trunc('month', date) AS DATE), COALESCE(category, 'Other'), currency, 'INCOME',
+       SUM(amount), COUNT(*)
+FROM incomes
+WHERE household_id IS NOT NULL
+GROUP BY 1, 2, 3, 4
+ON CONFLICT DO NOTHING;
@@ -0,0 +1,24 @@
+-- Delta sync (GET /api/sync): every row records when it last changed, and deletes leave a tombstone
+-- so clients can drop rows they already hold.
+ALTER TABLE expenses ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP NOT NULL DEFAULT NOW();
+ALTER TABLE incomes ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP NOT NULL DEFAULT NOW();
+ALTER TABLE subscriptions ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP NOT NULL DEFAULT NOW();
+
+UPDATE expenses SET updated_at = created_at WHERE created_at IS NOT NULL;
+UPDATE incomes SET updated_at = created_at WHERE created_at IS NOT NULL;
+UPDATE subscriptions SET updated_at = created_at WHERE created_at IS NOT NULL;
+
+CREATE INDEX IF NOT EXISTS idx_expenses_household_updated ON expenses (household_id, updated_at);
+CREATE INDEX IF NOT EXISTS idx_incomes_household_updated ON incomes (household_id, updated_at);
+CREATE INDEX IF NOT EXISTS idx_subscriptions_household_updated ON subscriptions (household_id, updated_at);
+
+-- entity_type: EXPENSE | INCOME | SUBSCRIPTION. Pruned after app.sync.tombstone-retention-days.
+CREATE TABLE IF NOT EXISTS sync_tombstones (
+    id           BIGSERIAL PRIMARY KEY,
+    household_id BIGINT NOT NULL REFERENCES households(id) ON DELETE CASCADE,
+    entity_type  VARCHAR(20) NOT NULL,
+    entity_id    BIGINT NOT NULL,
+    deleted_at   TIMESTAMP NOT NULL DEFAULT NOW()
+);
+CREATE INDEX IF NOT EXISTS idx_sync_tombstones_household_deleted ON sync_tombstones (household_id, deleted_at);
+CREATE INDEX IF NOT EXISTS idx_sync_tombstones_deleted ON sync_tombstones (deleted_at);
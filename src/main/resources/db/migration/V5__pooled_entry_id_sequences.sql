@@ -0,0 +1,17 @@
+-- Expenses, incomes and subscriptions take ids from their sequence in blocks of 50 (Hibernate pooled
+-- optimizer) so bulk inserts can be sent as JDBC batches; IDENTITY ids forced one round trip per row.
+-- Databases first created by Hibernate have identity columns instead of serial ones, altered the same way.
+DO $$
+DECLARE
+    t TEXT;
+BEGIN
+    FOREACH t IN ARRAY ARRAY['expenses', 'incomes', 'subscriptions'] LOOP
+        IF EXISTS (SELECT 1 FROM information_schema.columns
+                   WHERE table_schema = current_schema() AND table_name = t
+                     AND column_name = 'id' AND is_identity = 'YES') THEN
+            EXECUTE format('ALTER TABLE %I ALTER COLUMN id SET INCREMENT BY 50', t);
+        ELSE
+            EXECUTE format('ALTER SEQUENCE %s INCREMENT BY 50', pg_get_serial_sequence(t, 'id'));
+        END IF;
+    END LOOP;
+END $$;
@@ -0,0 +1,5 @@
+-- Expenses created without a category are saved with a provisional one and categorized in the
+-- background; the flag marks rows still waiting, and the partial index lets the sweeper find them.
+ALTER TABLE expenses ADD COLUMN IF NOT EXISTS category_pending BOOLEAN NOT NULL DEFAULT FALSE;
+
+CREATE INDEX IF NOT EXISTS idx_expenses_category_pending ON expenses (updated_at) WHERE category_pending;
@@ -0,0 +1,10 @@
+-- Shared category suggestions keyed by normalized description (lower-cased, digits and punctuation
+-- stripped), so a restart does not send every "uber" and "netflix" back to Groq. Rows older than
+-- app.category-cache.ttl are ignored and pruned.
+CREATE TABLE IF NOT EXISTS category_suggestions (
+    normalized_description VARCHAR(200) PRIMARY KEY,
+    category VARCHAR(50) NOT NULL,
+    updated_at TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+CREATE INDEX IF NOT EXISTS idx_category_suggestions_updated ON category_suggestions (updated_at);
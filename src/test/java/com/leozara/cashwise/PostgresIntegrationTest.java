@@ -0,0 +1,51 @@
+package com.leozara.cashwise;
+
+import com.leozara.cashwise.model.User;
+import com.leozara.cashwise.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.UUID;
+
+/**
+ * Base for tests that run against the Flyway-migrated schema in a real PostgreSQL. Subclasses add
+ * their own {@code @SpringBootTest}. The container is started once and shared by every subclass,
+ * so cached application contexts keep pointing at a live database; Testcontainers removes it when
+ * the JVM exits. Tests share the database, so each should create its own users and households.
+ */
+@ActiveProfiles("test")
+@Testcontainers(disabledWithoutDocker = true)
+public abstract class PostgresIntegrationTest {
+
+    protected static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine")
+            .withDatabaseName("cashwise_test")
+            .withUsername("cashwise")
+            .withPassword("cashwise");
+
+    @DynamicPropertySource
+    static void configureDatasource(DynamicPropertyRegistry registry) {
+        // Started here rather than in a static initializer so classes skipped without Docker never touch it
+        postgres.start();
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    protected UserRepository userRepository;
+
+    /** Saves a user with a unique email and username. */
+    protected User newUser() {
+        String suffix = UUID.randomUUID().toString().replace("-", "").substring(0, 12);
+        User user = new User();
+        user.setEmail("user_" + suffix + "@example.com");
+        user.setPassword("not-a-real-hash");
+        user.setName("User " + suffix);
+        user.setUsername("u_" + suffix);
+        return userRepository.save(user);
+    }
+}
@@ -0,0 +1,186 @@
+package com.leozara.cashwise.benchmark;
+
+import com.leozara.cashwise.PostgresIntegrationTest;
+import com.leozara.cashwise.model.User;
+import com.leozara.cashwise.security.JwtService;
+import com.leozara.cashwise.service.HouseholdService;
+import com.leozara.cashwise.service.MockGroqServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+
+/**
+ * Drives the /api/ai endpoints over HTTP against the embedded Groq stand-in ({@link MockGroqServer})
+ * and reports throughput and latency percentiles per endpoint. Each scenario runs
+ * {@code load.concurrency} closed-loop clients for {@code load.duration}. The stand-in answers after
+ * a log-normal delay (median {@code load.groq-median}, p99 {@code load.groq-p99}) and fails
+ * {@code load.groq-error-rate} of its calls, so the numbers include GroqClient's queueing, circuit
+ * breaking and the fallbacks AiService returns. Parse requests vary their text so the response
+ * cache does not answer them; insights and budget advice are cached or coalesced per household,
+ * as they would be in production.
+ * Run with {@code ./mvnw test -Dtest=AiEndpointsLoadBenchmark -Dbenchmarks=true -Dload.concurrency=64}.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class AiEndpointsLoadBenchmark extends PostgresIntegrationTest {
+
+    private static final int CONCURRENCY = Integer.getInteger("load.concurrency", 32);
+    private static final Duration DURATION = Duration.parse("PT" + System.getProperty("load.duration", "20s"));
+    private static final Duration WARM_UP = Duration.ofSeconds(3);
+
+    static final MockGroqServer groq;
+
+    static {
+        try {
+            groq = new MockGroqServer(0)
+                    .latency(Duration.parse("PT" + System.getProperty("load.groq-median", "0.3s")),
+                            Duration.parse("PT" + System.getProperty("load.groq-p99", "1.5s")))
+                    .errors(Double.parseDouble(System.getProperty("load.groq-error-rate", "0.01")), List.of(429, 503))
+                    .chunkDelay(Duration.ofMillis(20))
+                    .start();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("groq.api.url", groq::url);
+    }
+
+    @Autowired private HouseholdService householdService;
+    @Autowired private JwtService jwtService;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    @Value("${local.server.port}")
+    private int port;
+
+    private final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private String token;
+
+    @BeforeAll
+    void seed() {
+        User user = newUser();
+        Long userId = user.getId();
+        Long householdId = householdService.createHousehold(userId, "AI load household").getId();
+        jdbcTemplate.update("""
+                INSERT INTO expenses (description, amount, currency, date, category, user_id, household_id, created_at)
+                SELECT 'Expense ' || (g % 40), 5.00 + (g % 200), 'EUR', CURRENT_DATE - (g % 180),
+                       (ARRAY['Food','Transport','Groceries','Restaurants','Shopping'])[1 + g % 5], ?, ?, NOW()
+                FROM generate_series(1, ?) g
+                """, userId, householdId, 2_000);
+        token = jwtService.generateToken(userId, user.getEmail());
+    }
+
+    @AfterAll
+    void stopGroq() {
+        groq.close();
+    }
+
+    @Test
+    void loadAiEndpoints() throws Exception {
+        System.out.printf("%n[benchmark] /api/ai at %d concurrent clients, %s per endpoint%n", CONCURRENCY, DURATION);
+        System.out.printf("[benchmark] %-18s %9s %8s %8s %8s %8s %8s %7s %10s%n",
+                "endpoint", "requests", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms", "non-2xx", "groq calls");
+        run("parse-expense", i -> post("/api/ai/parse-expense", "{\"text\":\"coffee " + i + "\"}"));
+        run("parse-income", i -> post("/api/ai/parse-income", "{\"text\":\"freelance " + i + "\"}"));
+        run("chat", i -> post("/api/ai/chat", "{\"question\":\"Where can I save? (" + i + ")\",\"userCurrency\":\"EUR\"}"));
+        run("chat/stream", i -> post("/api/ai/chat/stream", "{\"question\":\"Where can I save? (" + i + ")\",\"userCurrency\":\"EUR\"}"));
+        run("insights", i -> post("/api/ai/insights", "{\"userCurrency\":\"EUR\"}"));
+        run("budget-advice", i -> post("/api/ai/budget-advice", "{\"userCurrency\":\"EUR\"}"));
+    }
+
+    private void run(String name, LongFunction<HttpRequest> request) throws Exception {
+        measure(request, WARM_UP);
+        long groqBefore = groq.requestCount();
+        Result result = measure(request, DURATION);
+        long[] latencies = result.latencies();
+        Arrays.sort(latencies);
+        System.out.printf("[benchmark] %-18s %9d %8.1f %8.1f %8.1f %8.1f %8.1f %7d %10d%n",
+                name, latencies.length, latencies.length / (result.elapsedNanos() / 1e9),
+                percentile(latencies, 0.50), percentile(latencies, 0.95), percentile(latencies, 0.99),
+                percentile(latencies, 1.0), result.failures(), groq.requestCount() - groqBefore);
+    }
+
+    private record Result(long[] latencies, long failures, long elapsedNanos) {}
+
+    /** {@code CONCURRENCY} clients, each sending its next request as soon as the previous one is fully read. */
+    private Result measure(LongFunction<HttpRequest> request, Duration duration) throws Exception {
+        AtomicLong sequence = new AtomicLong();
+        AtomicLong failures = new AtomicLong();
+        long started = System.nanoTime();
+        long deadline = started + duration.toNanos();
+        List<Future<long[]>> clients = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < CONCURRENCY; c++) {
+                clients.add(executor.submit(() -> {
+                    long[] samples = new long[256];
+                    int n = 0;
+                    while (System.nanoTime() < deadline) {
+                        long sent = System.nanoTime();
+                        HttpResponse<InputStream> response =
+                                http.send(request.apply(sequence.incrementAndGet()), HttpResponse.BodyHandlers.ofInputStream());
+                        try (InputStream body = response.body()) {
+                            body.transferTo(OutputStream.nullOutputStream());
+                        }
+                        if (response.statusCode() / 100 != 2) failures.incrementAndGet();
+                        if (n == samples.length) samples = Arrays.copyOf(samples, n * 2);
+                        samples[n++] = System.nanoTime() - sent;
+                    }
+                    return Arrays.copyOf(samples, n);
+                }));
+            }
+        }
+        long elapsed = System.nanoTime() - started;
+        long[] all = new long[0];
+        for (Future<long[]> client : clients) {
+            long[] samples = client.get();
+            int offset = all.length;
+            all = Arrays.copyOf(all, offset + samples.length);
+            System.arraycopy(samples, 0, all, offset, samples.length);
+        }
+        return new Result(all, failures.get(), elapsed);
+    }
+
+    private HttpRequest post(String path, String json) {
+        return HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + path))
+                .timeout(Duration.ofSeconds(90))
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+    }
+}
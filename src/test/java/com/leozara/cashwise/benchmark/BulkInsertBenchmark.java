@@ -0,0 +1,110 @@
+package com.leozara.cashwise.benchmark;
+
+import com.leozara.cashwise.PostgresIntegrationTest;
+import com.leozara.cashwise.dto.ExpenseCreateRequest;
+import com.leozara.cashwise.service.ExpenseService;
+import com.leozara.cashwise.service.HouseholdService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares a 500-item POST /api/expenses/bulk on the row-by-row path (one household lookup and one
+ * INSERT round trip per item) against the batched bulk path, reporting throughput and statement counts.
+ * Run with {@code ./mvnw test -Dtest=BulkInsertBenchmark -Dbenchmarks=true}.
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class BulkInsertBenchmark extends PostgresIntegrationTest {
+
+    private static final int ITEMS = 500;
+    private static final int ROUNDS = 5;
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.jpa.properties.hibernate.generate_statistics", () -> "true");
+    }
+
+    @Autowired private HouseholdService householdService;
+    @Autowired private ExpenseService expenseService;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+    @Autowired private TransactionTemplate transactionTemplate;
+
+    private Long userId;
+
+    @BeforeAll
+    void seed() {
+        userId = newUser().getId();
+        householdService.createHousehold(userId, "Bench household");
+    }
+
+    @Test
+    void compareRowByRowAndBatchedBulkInsert() {
+        List<ExpenseCreateRequest> requests = requests();
+
+        // Warm up both paths so class loading and JIT do not skew the measurement
+        rowByRow(requests);
+        expenseService.createExpenses(requests, userId);
+
+        Result before = measure(() -> rowByRow(requests));
+        Result after = measure(() -> expenseService.createExpenses(requests, userId));
+
+        System.out.printf("%n[benchmark] POST /api/expenses/bulk with %d items, %d rounds%n", ITEMS, ROUNDS);
+        print("row-by-row", before);
+        print("batched   ", after);
+    }
+
+    private void rowByRow(List<ExpenseCreateRequest> requests) {
+        transactionTemplate.executeWithoutResult(status -> requests.forEach(r -> expenseService.createExpense(r, userId)));
+    }
+
+    private List<ExpenseCreateRequest> requests() {
+        List<ExpenseCreateRequest> requests = new ArrayList<>(ITEMS);
+        for (int i = 0; i < ITEMS; i++) {
+            ExpenseCreateRequest request = new ExpenseCreateRequest();
+            request.setDescription("Bulk expense " + i);
+            request.setAmount(BigDecimal.valueOf(10 + i % 90));
+            request.setCurrency("EUR");
+            request.setDate(LocalDate.now().minusDays(i % 120));
+            // Categories are set so no item falls back to the AI categorizer
+            request.setCategory(i % 2 == 0 ? "Food" : "Transport");
+            requests.add(request);
+        }
+        return requests;
+    }
+
+    private record Result(double itemsPerSecond, double statementsPerRound, double rowsPerRound) {}
+
+    private Result measure(Runnable action) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            action.run();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        return new Result(ITEMS * ROUNDS / seconds,
+                (double) statistics.getPrepareStatementCount() / ROUNDS,
+                (double) statistics.getEntityInsertCount() / ROUNDS);
+    }
+
+    private void print(String label, Result result) {
+        System.out.printf("[benchmark] %s: %,.0f items/s, %.0f prepared statements and %.0f inserted rows per request%n",
+                label, result.itemsPerSecond(), result.statementsPerRound(), result.rowsPerRound());
+    }
+}
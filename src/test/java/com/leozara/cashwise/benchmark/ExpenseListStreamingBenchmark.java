@@ -0,0 +1,100 @@
+package com.leozara.cashwise.benchmark;
+
+import com.leozara.cashwise.PostgresIntegrationTest;
+import com.leozara.cashwise.service.ExpenseService;
+import com.leozara.cashwise.service.HouseholdService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.List;
+
+/**
+ * Compares heap use of GET /api/expenses for a 100k-row household: the old path that builds
+ * the entity list, the DTO list and then serializes it, against the streamed JSON array.
+ * Run with {@code ./mvnw test -Dtest=ExpenseListStreamingBenchmark -Dbenchmarks=true}.
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ExpenseListStreamingBenchmark extends PostgresIntegrationTest {
+
+    private static final int ROWS = 100_000;
+
+    @Autowired private HouseholdService householdService;
+    @Autowired private ExpenseService expenseService;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private ObjectMapper objectMapper;
+
+    private Long userId;
+
+    @BeforeAll
+    void seed() {
+        userId = newUser().getId();
+        Long householdId = householdService.createHousehold(userId, "Bench household").getId();
+
+        jdbcTemplate.update("""
+                INSERT INTO expenses (description, amount, currency, date, category, user_id, household_id, created_at)
+                SELECT 'Expense ' || g, 10.00 + (g % 500), 'EUR', CURRENT_DATE - (g % 1500), 'Food', ?, ?, NOW()
+                FROM generate_series(1, ?) g
+                """, userId, householdId, ROWS);
+    }
+
+    @Test
+    void compareMaterializedAndStreamedListing() throws Exception {
+        // Warm up both paths so class loading and JIT do not skew the first measurement
+        materialized(OutputStream.nullOutputStream());
+        streamed(OutputStream.nullOutputStream());
+
+        Measurement before = measure(() -> materialized(OutputStream.nullOutputStream()));
+        Measurement after = measure(() -> streamed(OutputStream.nullOutputStream()));
+
+        System.out.printf("%n[benchmark] GET /api/expenses with %,d rows%n", ROWS);
+        System.out.printf("[benchmark] materialized: peak heap %,d KB, allocated %,d KB%n",
+                before.peakHeapBytes() / 1024, before.allocatedBytes() / 1024);
+        System.out.printf("[benchmark] streamed:     peak heap %,d KB, allocated %,d KB%n",
+                after.peakHeapBytes() / 1024, after.allocatedBytes() / 1024);
+    }
+
+    private void materialized(OutputStream out) throws Exception {
+        out.write(objectMapper.writeValueAsBytes(expenseService.getAllExpenses(userId)));
+    }
+
+    private void streamed(OutputStream out) throws Exception {
+        expenseService.streamAllExpenses(userId).writeTo(out);
+    }
+
+    private record Measurement(long peakHeapBytes, long allocatedBytes) {}
+
+    private interface Action {
+        void run() throws Exception;
+    }
+
+    private Measurement measure(Action action) throws Exception {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(p -> p.getType() == MemoryType.HEAP)
+                .toList();
+
+        System.gc();
+        long baseline = heapPools.stream().mapToLong(p -> p.getUsage().getUsed()).sum();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+
+        action.run();
+
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        long peak = heapPools.stream().mapToLong(p -> p.getPeakUsage().getUsed()).sum();
+        return new Measurement(Math.max(0, peak - baseline), allocated);
+    }
+}
@@ -0,0 +1,101 @@
+package com.leozara.cashwise.controller;
+
+import com.leozara.cashwise.PostgresIntegrationTest;
+import com.leozara.cashwise.dto.ExpenseCreateRequest;
+import com.leozara.cashwise.service.ExpenseService;
+import com.leozara.cashwise.service.HouseholdService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Household list endpoints answer a matching If-None-Match with 304 without running any query,
+ * and hand out a new ETag once the household's data changes.
+ */
+@SpringBootTest
+class ConditionalListRequestTest extends PostgresIntegrationTest {
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.jpa.properties.hibernate.generate_statistics", () -> "true");
+    }
+
+    @Autowired private WebApplicationContext context;
+    @Autowired private HouseholdService householdService;
+    @Autowired private ExpenseService expenseService;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+
+    private MockMvc mockMvc;
+    private Long userId;
+
+    @BeforeEach
+    void signIn() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+        userId = newUser().getId();
+        householdService.createHousehold(userId, "ETag household");
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(userId, null, List.of()));
+    }
+
+    @AfterEach
+    void signOut() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void unchangedListIsNotModifiedWithoutQueries() throws Exception {
+        for (String url : List.of("/api/expenses/currency/EUR", "/api/incomes/date/2024-01-01",
+                "/api/subscriptions/active", "/api/budgets")) {
+            String etag = mockMvc.perform(get(url))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+            assertThat(etag).as(url).isNotBlank();
+
+            Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+            statistics.clear();
+            mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etag))
+                    .andExpect(status().isNotModified());
+            assertThat(statistics.getPrepareStatementCount()).as(url).isZero();
+        }
+    }
+
+    @Test
+    void writeChangesETag() throws Exception {
+        String before = mockMvc.perform(get("/api/expenses/currency/EUR"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        ExpenseCreateRequest request = new ExpenseCreateRequest();
+        request.setDescription("Bread");
+        request.setAmount(new BigDecimal("2.50"));
+        request.setCurrency("EUR");
+        request.setDate(LocalDate.now());
+        request.setCategory("Food");
+        expenseService.createExpense(request, userId);
+
+        String after = mockMvc.perform(get("/api/expenses/currency/EUR").header(HttpHeaders.IF_NONE_MATCH, before))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(after).isNotEqualTo(before);
+    }
+}
@@ -0,0 +1,145 @@
+package com.leozara.cashwise.repository;
+
+import com.leozara.cashwise.PostgresIntegrationTest;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Seeds large expense/income/subscription tables on the Flyway-migrated schema and checks that
+ * the SQL behind every repository finder is answered from an index rather than a sequential scan.
+ */
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class FinderIndexCoverageTest extends PostgresIntegrationTest {
+
+    private static final int HOUSEHOLDS = 1_000;
+    private static final int ROWS_PER_HOUSEHOLD = 200;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long householdId;
+    private long userId;
+
+    @BeforeAll
+    void seedLargeTables() {
+        jdbcTemplate.update("""
+                INSERT INTO users (email, password, name, username, created_at)
+                SELECT 'explain_' || g || '@example.com', 'x', 'User ' || g, 'explain_' || g, NOW()
+                FROM generate_series(1, ?) g
+                """, HOUSEHOLDS);
+        jdbcTemplate.update("""
+                INSERT INTO households (name, created_by)
+                SELECT 'Household ' || u.id, u.id FROM users u WHERE u.email LIKE 'explain\\_%'
+                """);
+        jdbcTemplate.update("""
+                INSERT INTO expenses (description, amount, currency, date, category, group_id, user_id, household_id, created_at)
+                SELECT 'Expense ' || g, 10.00, (ARRAY['EUR','USD','BRL','GBP','CHF'])[1 + g % 5],
+                       CURRENT_DATE - (g * 7 % 1500), 'Category' || (g % 30),
+                       CASE WHEN g % 10 = 0 THEN 'grp-' || h.id || '-' || g END,
+                       h.created_by, h.id, NOW()
+                FROM households h CROSS JOIN generate_series(1, ?) g
+                """, ROWS_PER_HOUSEHOLD);
+        jdbcTemplate.update("""
+                INSERT INTO incomes (description, amount, currency, date, category, user_id, household_id, created_at)
+                SELECT 'Income ' || g, 100.00, (ARRAY['EUR','USD','BRL','GBP','CHF'])[1 + g % 5],
+                       CURRENT_DATE - (g * 7 % 1500), 'Salary', h.created_by, h.id, NOW()
+                FROM households h CROSS JOIN generate_series(1, ?) g
+                """, ROWS_PER_HOUSEHOLD);
+        jdbcTemplate.update("""
+                INSERT INTO subscriptions (description, amount, currency, category, frequency, day_of_month,
+                                           active, next_due_date, user_id, household_id, created_at)
+                SELECT 'Subscription ' || g, 9.99, 'EUR', 'Entertainment', 'MONTHLY', 1 + g % 28,
+                       g % 4 <> 0, CURRENT_DATE + (g * 13 % 365) - 3, h.created_by, h.id, NOW()
+                FROM households h CROSS JOIN generate_series(1, 20) g
+                """);
+        jdbcTemplate.execute("ANALYZE");
+
+        householdId = jdbcTemplate.queryForObject("SELECT id FROM households ORDER BY id OFFSET ? LIMIT 1",
+                Long.class, HOUSEHOLDS / 2);
+        userId = jdbcTemplate.queryForObject("SELECT created_by FROM households WHERE id = ?",
+                Long.class, householdId);
+    }
+
+    Stream<Arguments> finders() {
+        return Stream.of(
+                // ExpenseRepository
+                finder("Expense.findByHouseholdId", "SELECT * FROM expenses WHERE household_id = :h"),
+                finder("Expense.findByHouseholdId(Pageable)",
+                        "SELECT * FROM expenses WHERE household_id = :h ORDER BY date DESC OFFSET 40 LIMIT 20"),
+                finder("Expense.findKeysetPageAfter", "SELECT * FROM expenses WHERE household_id = :h "
+                        + "AND (date < CURRENT_DATE - 30 OR (date = CURRENT_DATE - 30 AND id < 999999)) "
+                        + "ORDER BY date DESC, id DESC LIMIT 51"),
+                finder("Expense.findByIdAndHouseholdId", "SELECT * FROM expenses WHERE id = 12345 AND household_id = :h"),
+                finder("Expense.findByCategoryAndHouseholdId",
+                        "SELECT * FROM expenses WHERE category = 'Category7' AND household_id = :h"),
+                finder("Expense.findByDateBetweenAndHouseholdId",
+                        "SELECT * FROM expenses WHERE date BETWEEN CURRENT_DATE - 90 AND CURRENT_DATE AND household_id = :h"),
+                finder("Expense.findByCurrencyAndHouseholdId",
+                        "SELECT * FROM expenses WHERE currency = 'USD' AND household_id = :h"),
+                finder("Expense.findByDateAndHouseholdId",
+                        "SELECT * FROM expenses WHERE date = CURRENT_DATE - 7 AND household_id = :h"),
+                finder("Expense.existsByGroupId", "SELECT id FROM expenses WHERE group_id = 'grp-1-10' LIMIT 1"),
+                finder("Expense.findByUserId", "SELECT * FROM expenses WHERE user_id = :u"),
+                finder("Expense.deleteByUserId", "DELETE FROM expenses WHERE user_id = :u"),
+
+                // IncomeRepository
+                finder("Income.findByHouseholdId", "SELECT * FROM incomes WHERE household_id = :h"),
+                finder("Income.findByHouseholdId(Pageable)",
+                        "SELECT * FROM incomes WHERE household_id = :h ORDER BY date DESC OFFSET 40 LIMIT 20"),
+                finder("Income.findKeysetPageAfter", "SELECT * FROM incomes WHERE household_id = :h "
+                        + "AND (date < CURRENT_DATE - 30 OR (date = CURRENT_DATE - 30 AND id < 999999)) "
+                        + "ORDER BY date DESC, id DESC LIMIT 51"),
+                finder("Income.findByIdAndHouseholdId", "SELECT * FROM incomes WHERE id = 12345 AND household_id = :h"),
+                finder("Income.findByDateBetweenAndHouseholdId",
+                        "SELECT * FROM incomes WHERE date BETWEEN CURRENT_DATE - 90 AND CURRENT_DATE AND household_id = :h"),
+                finder("Income.findByCurrencyAndHouseholdId",
+                        "SELECT * FROM incomes WHERE currency = 'USD' AND household_id = :h"),
+                finder("Income.findByDateAndHouseholdId",
+                        "SELECT * FROM incomes WHERE date = CURRENT_DATE - 7 AND household_id = :h"),
+                finder("Income.deleteByUserId", "DELETE FROM incomes WHERE user_id = :u"),
+
+                // SubscriptionRepository
+                finder("Subscription.findByHouseholdId", "SELECT * FROM subscriptions WHERE household_id = :h"),
+                finder("Subscription.findByHouseholdId(Pageable)",
+                        "SELECT * FROM subscriptions WHERE household_id = :h ORDER BY description OFFSET 5 LIMIT 5"),
+                finder("Subscription.findKeysetPageAfter", "SELECT * FROM subscriptions WHERE household_id = :h "
+                        + "AND (description > 'Subscription 1' OR (description = 'Subscription 1' AND id > 0)) "
+                        + "ORDER BY description, id LIMIT 51"),
+                finder("Subscription.findByIdAndHouseholdId",
+                        "SELECT * FROM subscriptions WHERE id = 12345 AND household_id = :h"),
+                finder("Subscription.findByActiveTrueAndHouseholdId",
+                        "SELECT * FROM subscriptions WHERE active = TRUE AND household_id = :h"),
+                finder("Subscription.findByActiveTrueAndNextDueDateLessThanEqual",
+                        "SELECT * FROM subscriptions WHERE active = TRUE AND next_due_date <= CURRENT_DATE"),
+                finder("Subscription.findByActiveTrueAndNextDueDateLessThanEqualAndHouseholdId",
+                        "SELECT * FROM subscriptions WHERE active = TRUE AND next_due_date <= CURRENT_DATE AND household_id = :h"),
+                finder("Subscription.deleteByUserId", "DELETE FROM subscriptions WHERE user_id = :u")
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("finders")
+    void finderDoesNotSequentialScan(String finder, String sql) {
+        String bound = sql.replace(":h", Long.toString(householdId)).replace(":u", Long.toString(userId));
+        String plan = String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + bound, String.class));
+
+        assertThat(plan)
+                .as("%s plan:%n%s", finder, plan)
+                .doesNotContain("Seq Scan");
+    }
+
+    private static Arguments finder(String name, String sql) {
+        return Arguments.of(name, sql);
+    }
+}
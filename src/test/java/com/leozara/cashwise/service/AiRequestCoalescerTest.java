@@ -0,0 +1,116 @@
+package com.leozara.cashwise.service;
+
+import com.leozara.cashwise.service.AiRequestCoalescer.Endpoint;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AiRequestCoalescerTest {
+
+    private final HouseholdMembershipResolver memberships = mock(HouseholdMembershipResolver.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService devices = Executors.newFixedThreadPool(4);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final AtomicInteger calls = new AtomicInteger();
+    private HouseholdDataVersions dataVersions;
+    private AiRequestCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() {
+        // Users 1 and 2 share household 10
+        when(memberships.getHouseholdId(1L)).thenReturn(10L);
+        when(memberships.getHouseholdId(2L)).thenReturn(10L);
+        dataVersions = new HouseholdDataVersions(memberships, event -> {}, 1000);
+        coalescer = new AiRequestCoalescer(memberships, dataVersions, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        devices.shutdownNow();
+    }
+
+    @Test
+    void concurrentDuplicatesShareOneCall() throws Exception {
+        Future<List<String>> first = devices.submit(() -> coalescer.run(Endpoint.INSIGHTS, 1L, "EUR", slowCall()));
+        awaitCalls(1);
+        Future<List<String>> second = devices.submit(() -> coalescer.run(Endpoint.INSIGHTS, 2L, "eur", slowCall()));
+        Future<List<String>> third = devices.submit(() -> coalescer.run(Endpoint.INSIGHTS, 1L, null, slowCall()));
+        awaitCoalesced(2);
+
+        release.countDown();
+
+        assertThat(first.get(5, TimeUnit.SECONDS)).containsExactly("answer 1");
+        assertThat(second.get(5, TimeUnit.SECONDS)).containsExactly("answer 1");
+        assertThat(third.get(5, TimeUnit.SECONDS)).containsExactly("answer 1");
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    void doesNotJoinAcrossEndpointsCurrenciesOrDataVersions() throws Exception {
+        Future<List<String>> insights = devices.submit(() -> coalescer.run(Endpoint.INSIGHTS, 1L, "EUR", slowCall()));
+        awaitCalls(1);
+        Future<List<String>> advice = devices.submit(() -> coalescer.run(Endpoint.BUDGET_ADVICE, 1L, "EUR", slowCall()));
+        Future<List<String>> brl = devices.submit(() -> coalescer.run(Endpoint.INSIGHTS, 1L, "BRL", slowCall()));
+        awaitCalls(3);
+        dataVersions.bump(10L);
+        Future<List<String>> afterWrite = devices.submit(() -> coalescer.run(Endpoint.INSIGHTS, 2L, "EUR", slowCall()));
+        awaitCalls(4);
+
+        release.countDown();
+
+        for (Future<List<String>> result : List.of(insights, advice, brl, afterWrite)) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).hasSize(1);
+        }
+        assertThat(meterRegistry.counter("ai.requests.coalesced", "endpoint", "insights").count()).isZero();
+    }
+
+    @Test
+    void startsAFreshCallOnceThePreviousOneFinished() {
+        release.countDown();
+
+        coalescer.run(Endpoint.BUDGET_ADVICE, 1L, "EUR", slowCall());
+        coalescer.run(Endpoint.BUDGET_ADVICE, 2L, "EUR", slowCall());
+
+        assertThat(calls).hasValue(2);
+    }
+
+    private Supplier<List<String>> slowCall() {
+        return () -> {
+            int call = calls.incrementAndGet();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return List.of("answer " + call);
+        };
+    }
+
+    private void awaitCalls(int expected) throws InterruptedException {
+        for (int i = 0; i < 100 && calls.get() < expected; i++) Thread.sleep(20);
+        assertThat(calls).hasValue(expected);
+    }
+
+    private void awaitCoalesced(int expected) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            if (meterRegistry.counter("ai.requests.coalesced", "endpoint", "insights").count() >= expected) return;
+            Thread.sleep(20);
+        }
+        throw new AssertionError("Expected " + expected + " coalesced requests");
+    }
+}
@@ -0,0 +1,58 @@
+package com.leozara.cashwise.service;
+
+import com.leozara.cashwise.service.GroqClient.Operation;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AiResponseCacheTest {
+
+    private final AiResponseCache cache = new AiResponseCache(new SimpleMeterRegistry(), 100, Duration.ofHours(1));
+
+    @Test
+    void sameRequestHasSameKeyRegardlessOfMapOrder() {
+        Map<String, Object> body = body("context A", "llama", 0.2);
+        Map<String, Object> reordered = new LinkedHashMap<>();
+        reordered.put("temperature", 0.2);
+        reordered.put("max_tokens", 600);
+        reordered.put("messages", body.get("messages"));
+        reordered.put("model", "llama");
+
+        assertThat(cache.key(Operation.BUDGET_ADVICE, reordered)).isEqualTo(cache.key(Operation.BUDGET_ADVICE, body));
+    }
+
+    @Test
+    void anyChangedInputChangesTheKey() {
+        String key = cache.key(Operation.BUDGET_ADVICE, body("context A", "llama", 0.2));
+
+        assertThat(cache.key(Operation.BUDGET_ADVICE, body("context B", "llama", 0.2))).isNotEqualTo(key);
+        assertThat(cache.key(Operation.BUDGET_ADVICE, body("context A", "mixtral", 0.2))).isNotEqualTo(key);
+        assertThat(cache.key(Operation.BUDGET_ADVICE, body("context A", "llama", 0.7))).isNotEqualTo(key);
+        assertThat(cache.key(Operation.INSIGHTS, body("context A", "llama", 0.2))).isNotEqualTo(key);
+    }
+
+    @Test
+    void returnsStoredAnswer() {
+        String key = cache.key(Operation.INSIGHTS, body("context A", "llama", 0.2));
+        assertThat(cache.get(key)).isNull();
+
+        cache.put(key, "{\"insights\":[]}");
+
+        assertThat(cache.get(key)).isEqualTo("{\"insights\":[]}");
+    }
+
+    private static Map<String, Object> body(String context, String model, double temperature) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("model", model);
+        body.put("messages", List.of(Map.of("role", "user", "content", context)));
+        body.put("temperature", temperature);
+        body.put("max_tokens", 600);
+        return body;
+    }
+}
@@ -0,0 +1,70 @@
+package com.leozara.cashwise.service;
+
+import com.leozara.cashwise.service.GroqClient.Operation;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AiTelemetryTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final HouseholdMembershipResolver memberships = mock(HouseholdMembershipResolver.class);
+    private final AiTelemetry telemetry = new AiTelemetry(meterRegistry, memberships, 100);
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void resolvesTheHouseholdOfTheAuthenticatedUser() {
+        when(memberships.findHouseholdId(7L)).thenReturn(70L);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(7L, null, List.of()));
+
+        assertThat(telemetry.currentHousehold()).isEqualTo(70L);
+    }
+
+    @Test
+    void withoutAUserThereIsNoHousehold() {
+        assertThat(telemetry.currentHousehold()).isNull();
+    }
+
+    @Test
+    void listsHouseholdsByTokensUsed() {
+        telemetry.recordUsage(Operation.CHAT, "llama", 1L, usage(100, 20));
+        telemetry.recordUsage(Operation.CHAT, "llama", 2L, usage(500, 50));
+        telemetry.recordUsage(Operation.INSIGHTS, "llama", 1L, usage(300, 40));
+        telemetry.recordUsage(Operation.CATEGORY, "llama", null, usage(900, 5));
+
+        assertThat(telemetry.topHouseholds(10)).containsExactly(
+                new AiTelemetry.HouseholdUsageView(2L, 1, 500, 50),
+                new AiTelemetry.HouseholdUsageView(1L, 2, 400, 60));
+        assertThat(telemetry.topHouseholds(1)).hasSize(1);
+        // Unattributed calls still count in the metrics
+        assertThat(meterRegistry.get("ai.prompt.tokens").tag("operation", "category").summary().totalAmount())
+                .isEqualTo(900);
+    }
+
+    @Test
+    void classifiesErrorsByKind() {
+        telemetry.recordError(Operation.CHAT, "llama", new GroqClient.UpstreamException(429));
+        telemetry.recordError(Operation.CHAT, "llama", new GroqClient.UpstreamException(503));
+
+        assertThat(meterRegistry.get("ai.groq.errors").tag("kind", "rate_limited").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("ai.groq.errors").tag("kind", "server_error").counter().count()).isEqualTo(1);
+    }
+
+    private static Map<String, Object> usage(int prompt, int completion) {
+        return Map.of("prompt_tokens", prompt, "completion_tokens", completion);
+    }
+}
@@ -0,0 +1,168 @@
+package com.leozara.cashwise.service;
+
+import com.leozara.cashwise.PostgresIntegrationTest;
+import com.leozara.cashwise.model.Expense;
+import com.leozara.cashwise.model.HouseholdMember;
+import com.leozara.cashwise.model.Income;
+import com.leozara.cashwise.model.Subscription;
+import com.leozara.cashwise.repository.ExpenseRepository;
+import com.leozara.cashwise.repository.HouseholdMemberRepository;
+import com.leozara.cashwise.repository.IncomeRepository;
+import com.leozara.cashwise.repository.SubscriptionRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Listing endpoints must label every row with its author without issuing a user lookup per row.
+ */
+@SpringBootTest
+class AuthorEnrichmentQueryCountTest extends PostgresIntegrationTest {
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.jpa.properties.hibernate.generate_statistics", () -> "true");
+    }
+
+    @Autowired private HouseholdMemberRepository memberRepository;
+    @Autowired private ExpenseRepository expenseRepository;
+    @Autowired private IncomeRepository incomeRepository;
+    @Autowired private SubscriptionRepository subscriptionRepository;
+    @Autowired private HouseholdService householdService;
+    @Autowired private ExpenseService expenseService;
+    @Autowired private IncomeService incomeService;
+    @Autowired private SubscriptionService subscriptionService;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Long ownerId;
+    private Long memberId;
+    private Long householdId;
+
+    @BeforeEach
+    void seedHousehold() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        ownerId = newUser().getId();
+        memberId = newUser().getId();
+        householdId = householdService.createHousehold(ownerId, "Query count household").getId();
+        memberRepository.save(new HouseholdMember(householdId, memberId, "MEMBER"));
+    }
+
+    @Test
+    void expenseListingsUseConstantQueryCount() {
+        seedExpenses(4);
+        expenseService.getAllExpenses(ownerId);
+        long small = countStatements(() -> expenseService.getAllExpenses(ownerId));
+        long smallRange = countStatements(() -> expenseService.getExpensesByDateRange(
+                LocalDate.now().minusYears(1), LocalDate.now(), ownerId));
+
+        seedExpenses(300);
+        long large = countStatements(() -> expenseService.getAllExpenses(ownerId));
+        long largeRange = countStatements(() -> expenseService.getExpensesByDateRange(
+                LocalDate.now().minusYears(1), LocalDate.now(), ownerId));
+
+        assertThat(expenseService.getAllExpenses(ownerId)).hasSize(304)
+                .allSatisfy(e -> assertThat(e.getAddedByName()).isNotBlank());
+        assertThat(large).isEqualTo(small);
+        assertThat(largeRange).isEqualTo(smallRange);
+    }
+
+    @Test
+    void incomeListingUsesConstantQueryCount() {
+        seedIncomes(4);
+        incomeService.getAllIncomes(ownerId);
+        long small = countStatements(() -> incomeService.getAllIncomes(ownerId));
+
+        seedIncomes(300);
+        long large = countStatements(() -> incomeService.getAllIncomes(ownerId));
+
+        assertThat(large).isEqualTo(small);
+    }
+
+    @Test
+    void subscriptionListingUsesConstantQueryCount() {
+        seedSubscriptions(4);
+        subscriptionService.getAllSubscriptions(ownerId);
+        long small = countStatements(() -> subscriptionService.getAllSubscriptions(ownerId));
+
+        seedSubscriptions(300);
+        long large = countStatements(() -> subscriptionService.getAllSubscriptions(ownerId));
+
+        assertThat(large).isEqualTo(small);
+    }
+
+    private long countStatements(Runnable action) {
+        statistics.clear();
+        action.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private Long authorFor(int i) {
+        return i % 2 == 0 ? ownerId : memberId;
+    }
+
+    private void seedExpenses(int count) {
+        List<Expense> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Expense e = new Expense();
+            e.setDescription("Expense " + i);
+            e.setAmount(BigDecimal.TEN);
+            e.setCurrency("EUR");
+            e.setDate(LocalDate.now().minusDays(i % 60));
+            e.setCategory("Food");
+            e.setUserId(authorFor(i));
+            e.setHouseholdId(householdId);
+            rows.add(e);
+        }
+        expenseRepository.saveAll(rows);
+    }
+
+    private void seedIncomes(int count) {
+        List<Income> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Income income = new Income();
+            income.setDescription("Income " + i);
+            income.setAmount(BigDecimal.TEN);
+            income.setCurrency("EUR");
+            income.setDate(LocalDate.now().minusDays(i % 60));
+            income.setCategory("Salary");
+            income.setUserId(authorFor(i));
+            income.setHouseholdId(householdId);
+            rows.add(income);
+        }
+        incomeRepository.saveAll(rows);
+    }
+
+    private void seedSubscriptions(int count) {
+        List<Subscription> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Subscription sub = new Subscription();
+            sub.setDescription("Subscription " + i);
+            sub.setAmount(BigDecimal.TEN);
+            sub.setCurrency("EUR");
+            sub.setCategory("Entertainment");
+            sub.setFrequency("MONTHLY");
+            sub.setDayOfMonth(1 + i % 28);
+            sub.setActive(true);
+            sub.setNextDueDate(LocalDate.now().plusDays(1 + i % 28));
+            sub.setUserId(authorFor(i));
+            sub.setHouseholdId(householdId);
+            rows.add(sub);
+        }
+        subscriptionRepository.saveAll(rows);
+    }
+}
@@ -0,0 +1,134 @@
+package com.leozara.cashwise.service;
+
+import com.leozara.cashwise.PostgresIntegrationTest;
+import com.leozara.cashwise.dto.ExpenseCreateRequest;
+import com.leozara.cashwise.dto.ExpenseResponse;
+import com.leozara.cashwise.dto.ExpenseUpdateRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Creating an expense without a category must not wait for Groq: the row is saved as pending and
+ * the background worker writes the real category, its rollup and a new data version afterwards.
+ */
+@SpringBootTest
+class BackgroundCategorizationTest extends PostgresIntegrationTest {
+
+    @MockitoBean private AiService aiService;
+    @Autowired private HouseholdService householdService;
+    @Autowired private ExpenseService expenseService;
+    @Autowired private HouseholdDataVersions dataVersions;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private CategorizationWorker categorizationWorker;
+
+    private Long userId;
+    private Long householdId;
+
+    @BeforeEach
+    void seedHousehold() {
+        userId = newUser().getId();
+        householdId = householdService.createHousehold(userId, "Categorization household").getId();
+    }
+
+    @Test
+    void savesPendingExpenseAndCategorizesItInTheBackground() throws Exception {
+        CountDownLatch groqAnswer = new CountDownLatch(1);
+        when(aiService.suggestCategory("Casa Lopes")).thenAnswer(invocation -> {
+            groqAnswer.await(10, TimeUnit.SECONDS);
+            return Optional.of("Groceries");
+        });
+
+        ExpenseResponse created = expenseService.createExpense(expense("Casa Lopes"), userId);
+
+        assertThat(created.isCategoryPending()).isTrue();
+        assertThat(created.getCategory()).isEqualTo("General");
+        String etagBefore = dataVersions.etagFor(userId);
+
+        groqAnswer.countDown();
+        Map<String, Object> row = awaitCategorized(created.getId());
+
+        assertThat(row.get("category")).isEqualTo("Groceries");
+        assertThat(dataVersions.etagFor(userId)).isNotEqualTo(etagBefore);
+        assertThat(jdbcTemplate.queryForList(
+                "SELECT category, entries FROM monthly_rollups WHERE household_id = ? AND kind = 'EXPENSE'", householdId))
+                .containsExactly(Map.of("category", "Groceries", "entries", 1L));
+    }
+
+    @Test
+    void userCategoryWinsOverBackgroundAnswer() throws Exception {
+        CountDownLatch groqAnswer = new CountDownLatch(1);
+        when(aiService.suggestCategory("Quiosque Ramos")).thenAnswer(invocation -> {
+            groqAnswer.await(10, TimeUnit.SECONDS);
+            return Optional.of("Groceries");
+        });
+        ExpenseResponse created = expenseService.createExpense(expense("Quiosque Ramos"), userId);
+
+        ExpenseUpdateRequest edit = new ExpenseUpdateRequest();
+        edit.setDescription("Quiosque Ramos");
+        edit.setAmount(new BigDecimal("4.20"));
+        edit.setCurrency("EUR");
+        edit.setDate(LocalDate.now());
+        edit.setCategory("Food");
+        expenseService.updateExpense(created.getId(), edit, userId);
+        groqAnswer.countDown();
+        Thread.sleep(500);
+
+        assertThat(jdbcTemplate.queryForMap("SELECT category, category_pending FROM expenses WHERE id = ?", created.getId()))
+                .containsEntry("category", "Food")
+                .containsEntry("category_pending", false);
+    }
+
+    @Test
+    void leavesExpensePendingWhileGroqIsUnavailable() throws Exception {
+        when(aiService.suggestCategory("Zorblat Lda")).thenReturn(Optional.empty());
+
+        ExpenseResponse created = expenseService.createExpense(expense("Zorblat Lda"), userId);
+        verify(aiService, timeout(5000)).suggestCategory("Zorblat Lda");
+        Thread.sleep(300);
+
+        assertThat(jdbcTemplate.queryForMap("SELECT category, category_pending FROM expenses WHERE id = ?", created.getId()))
+                .containsEntry("category", "General")
+                .containsEntry("category_pending", true);
+
+        // The next attempt, as the stale sweep would make it, succeeds once Groq is back
+        when(aiService.suggestCategory("Zorblat Lda")).thenReturn(Optional.of("Groceries"));
+        categorizationWorker.categorize(created.getId());
+
+        assertThat(awaitCategorized(created.getId()).get("category")).isEqualTo("Groceries");
+    }
+
+    private Map<String, Object> awaitCategorized(Long id) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            Map<String, Object> row = jdbcTemplate.queryForMap(
+                    "SELECT category, category_pending FROM expenses WHERE id = ?", id);
+            if (!(Boolean) row.get("category_pending")) return row;
+            Thread.sleep(100);
+        }
+        throw new AssertionError("Expense " + id + " was not categorized in time");
+    }
+
+    private ExpenseCreateRequest expense(String description) {
+        ExpenseCreateRequest request = new ExpenseCreateRequest();
+        request.setDescription(description);
+        request.setAmount(new BigDecimal("4.20"));
+        request.setCurrency("EUR");
+        request.setDate(LocalDate.now());
+        return request;
+    }
+}
@@ -0,0 +1,30 @@
+package com.leozara.cashwise.service;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class Base64EncodingInputStreamTest {
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 2, 3, 12_287, 12_288, 12_289, 100_000})
+    void matchesTheJdkEncoder(int size) throws Exception {
+        byte[] data = new byte[size];
+        new Random(size).nextBytes(data);
+
+        String encoded;
+        try (InputStream in = new Base64EncodingInputStream(new ByteArrayInputStream(data))) {
+            encoded = new String(in.readAllBytes(), StandardCharsets.US_ASCII);
+        }
+
+        assertThat(encoded).isEqualTo(Base64.getEncoder().encodeToString(data));
+        assertThat((long) encoded.length()).isEqualTo(4 * ((size + 2L) / 3));
+    }
+}
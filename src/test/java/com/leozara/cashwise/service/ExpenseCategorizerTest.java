@@ -0,0 +1,148 @@
+package com.leozara.cashwise.service;
+
+import com.leozara.cashwise.repository.CategorizedDescriptionView;
+import com.leozara.cashwise.repository.CategorySuggestionRepository;
+import com.leozara.cashwise.repository.ExpenseRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ExpenseCategorizerTest {
+
+    private static final Long HOUSEHOLD = 1L;
+
+    private final AiService aiService = mock(AiService.class);
+    private final ExpenseRepository expenseRepository = mock(ExpenseRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ExpenseCategorizer categorizer;
+
+    @BeforeEach
+    void setUp() {
+        when(expenseRepository.findRecentCategorized(eq(HOUSEHOLD), any())).thenReturn(List.of());
+        CategorySuggestionCache suggestionCache = new CategorySuggestionCache(
+                mock(CategorySuggestionRepository.class), meterRegistry, 1000, Duration.ofDays(1), false);
+        categorizer = new ExpenseCategorizer(aiService, suggestionCache, expenseRepository,
+                mock(HouseholdMembershipResolver.class), meterRegistry, 0.6, 2000, 100);
+    }
+
+    @Test
+    void answersFromSeedVocabularyWithoutCallingGroq() {
+        assertThat(categorizer.categorize(HOUSEHOLD, "Uber to the airport 23/05")).isEqualTo("Transport");
+        assertThat(categorizer.categorize(HOUSEHOLD, "Almoço no restaurante")).isEqualTo("Restaurants");
+
+        verify(aiService, never()).suggestCategory(anyString());
+        assertThat(meterRegistry.counter("ai.categorizer.requests", "source", "local").count()).isEqualTo(2);
+    }
+
+    @Test
+    void fallsBackToGroqWhenUnsureAndLearnsTheAnswer() {
+        when(aiService.suggestCategory("Casa Lopes")).thenReturn(Optional.of("Groceries"));
+
+        assertThat(categorizer.categorize(HOUSEHOLD, "Casa Lopes")).isEqualTo("Groceries");
+        assertThat(categorizer.categorize(HOUSEHOLD, "CASA LOPES")).isEqualTo("Groceries");
+
+        verify(aiService).suggestCategory("Casa Lopes");
+        assertThat(meterRegistry.counter("ai.categorizer.requests", "source", "llm").count()).isEqualTo(1);
+        assertThat(meterRegistry.counter("ai.categorizer.requests", "source", "local").count()).isEqualTo(1);
+    }
+
+    @Test
+    void fallsBackToGeneralWithoutCachingWhenGroqFails() {
+        when(aiService.suggestCategory("Casa Lopes")).thenReturn(Optional.empty());
+
+        assertThat(categorizer.categorize(HOUSEHOLD, "Casa Lopes")).isEqualTo("General");
+        assertThat(categorizer.categorizeLocally(HOUSEHOLD, "Casa Lopes")).isNull();
+    }
+
+    @Test
+    void batchSendsOnlyDistinctUnsureDescriptionsToGroqInOneCall() {
+        when(aiService.suggestCategories(List.of("Casa Lopes", "Quiosque Ramos")))
+                .thenReturn(Map.of("Casa Lopes", "Groceries", "Quiosque Ramos", "Shopping"));
+
+        Map<String, String> categories = categorizer.categorizeAll(HOUSEHOLD,
+                List.of("Casa Lopes", "Uber", "Casa Lopes", "Quiosque Ramos", "Uber"));
+
+        assertThat(categories).containsExactlyInAnyOrderEntriesOf(Map.of(
+                "Casa Lopes", "Groceries", "Uber", "Transport", "Quiosque Ramos", "Shopping"));
+        verify(aiService).suggestCategories(List.of("Casa Lopes", "Quiosque Ramos"));
+        verify(aiService, never()).suggestCategory(anyString());
+    }
+
+    @Test
+    void sharesGroqAnswersAcrossHouseholdsByNormalizedDescription() {
+        when(expenseRepository.findRecentCategorized(eq(2L), any())).thenReturn(List.of());
+        when(aiService.suggestCategory("CASA LOPES #0042")).thenReturn(Optional.of("Groceries"));
+
+        categorizer.categorize(HOUSEHOLD, "CASA LOPES #0042");
+
+        assertThat(categorizer.categorize(2L, "casa lopes 17")).isEqualTo("Groceries");
+        verify(aiService).suggestCategory(anyString());
+        assertThat(meterRegistry.counter("ai.category_cache.requests", "result", "hit", "tier", "memory").count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void batchLeavesOutDescriptionsGroqCouldNotAnswer() {
+        when(aiService.suggestCategories(List.of("Casa Lopes"))).thenReturn(Map.of());
+
+        assertThat(categorizer.categorizeAll(HOUSEHOLD, List.of("Casa Lopes", "Uber")))
+                .containsExactlyEntriesOf(Map.of("Uber", "Transport"));
+        assertThat(categorizer.categorizeLocally(HOUSEHOLD, "Casa Lopes")).isNull();
+    }
+
+    @Test
+    void neverLearnsGeneral() {
+        CategorizedDescriptionView fallback = mock(CategorizedDescriptionView.class);
+        when(fallback.getDescription()).thenReturn("Quiosque Ramos");
+        when(fallback.getCategory()).thenReturn("General");
+        when(expenseRepository.findRecentCategorized(eq(2L), any())).thenReturn(List.of(fallback, fallback, fallback));
+        when(aiService.suggestCategories(List.of("Casa Lopes"))).thenReturn(Map.of("Casa Lopes", "General"));
+
+        categorizer.categorizeAll(HOUSEHOLD, List.of("Casa Lopes"));
+        categorizer.observe(HOUSEHOLD, "Casa Lopes", "General");
+
+        assertThat(categorizer.categorizeLocally(HOUSEHOLD, "Casa Lopes")).isNull();
+        assertThat(categorizer.categorizeLocally(2L, "Quiosque Ramos")).isNull();
+    }
+
+    @Test
+    void householdHistoryOverridesSeedVocabulary() {
+        // This household files its gym membership under Services, not Health
+        categorizer.observe(HOUSEHOLD, "Gym membership", "Services");
+        categorizer.observe(HOUSEHOLD, "Gym membership", "Services");
+
+        assertThat(categorizer.categorize(HOUSEHOLD, "gym membership")).isEqualTo("Services");
+        verify(aiService, never()).suggestCategory(anyString());
+    }
+
+    @Test
+    void scoresConfidentGuessesAgainstUserChoices() {
+        categorizer.observe(HOUSEHOLD, "Netflix", "Entertainment");
+        categorizer.observe(HOUSEHOLD, "Spotify", "Services");
+
+        assertThat(meterRegistry.counter("ai.categorizer.accuracy", "outcome", "correct").count()).isEqualTo(1);
+        assertThat(meterRegistry.counter("ai.categorizer.accuracy", "outcome", "incorrect").count()).isEqualTo(1);
+    }
+
+    @Test
+    void ignoresCategoriesOutsideTheKnownSet() {
+        categorizer.observe(HOUSEHOLD, "Casa Lopes", "Pets");
+        when(aiService.suggestCategory("Casa Lopes")).thenReturn(Optional.of("Groceries"));
+
+        assertThat(categorizer.categorize(HOUSEHOLD, "Casa Lopes")).isEqualTo("Groceries");
+    }
+}
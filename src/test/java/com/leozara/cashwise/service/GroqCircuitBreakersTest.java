@@ -0,0 +1,99 @@
+package com.leozara.cashwise.service;
+
+import com.leozara.cashwise.service.GroqCircuitBreakers.Breaker;
+import com.leozara.cashwise.service.GroqCircuitBreakers.CircuitOpenException;
+import com.leozara.cashwise.service.GroqCircuitBreakers.Model;
+import com.leozara.cashwise.service.GroqCircuitBreakers.State;
+import com.leozara.cashwise.service.GroqClient.Operation;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GroqCircuitBreakersTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicLong clock = new AtomicLong();
+    private final GroqCircuitBreakers breakers = new GroqCircuitBreakers(meterRegistry, 10, 4, 50,
+            Map.of(Model.TEXT, Duration.ofSeconds(5), Model.VISION, Duration.ofSeconds(20)),
+            Duration.ofSeconds(30), clock::get);
+    private final Breaker text = breakers.forOperation(Operation.CHAT);
+
+    @Test
+    void opensWhenHalfOfTheRecentCallsFailed() {
+        succeed(text, 2);
+        fail(text, 1);
+        assertThat(breakers.state(Model.TEXT)).isEqualTo(State.CLOSED);
+
+        fail(text, 1);
+
+        assertThat(breakers.state(Model.TEXT)).isEqualTo(State.OPEN);
+        assertThatThrownBy(text::acquirePermission).isInstanceOf(CircuitOpenException.class);
+        assertThat(meterRegistry.counter("ai.circuit.rejected", "model", "text").count()).isEqualTo(1);
+        assertThat(meterRegistry.get("ai.circuit.state").tag("model", "text").gauge().value()).isEqualTo(2);
+    }
+
+    @Test
+    void countsSlowSuccessesAsFailures() {
+        for (int i = 0; i < 4; i++) {
+            text.acquirePermission();
+            text.onSuccess(Duration.ofSeconds(6).toNanos());
+        }
+
+        assertThat(breakers.state(Model.TEXT)).isEqualTo(State.OPEN);
+    }
+
+    @Test
+    void letsOneTrialThroughAfterTheOpenDuration() {
+        fail(text, 4);
+        clock.addAndGet(Duration.ofSeconds(31).toNanos());
+
+        text.acquirePermission();
+        assertThat(breakers.state(Model.TEXT)).isEqualTo(State.HALF_OPEN);
+        assertThatThrownBy(text::acquirePermission).isInstanceOf(CircuitOpenException.class);
+
+        text.onSuccess(0);
+        assertThat(breakers.state(Model.TEXT)).isEqualTo(State.CLOSED);
+        text.acquirePermission();
+    }
+
+    @Test
+    void failedTrialOpensAgain() {
+        fail(text, 4);
+        clock.addAndGet(Duration.ofSeconds(31).toNanos());
+
+        text.acquirePermission();
+        text.onFailure();
+
+        assertThat(breakers.state(Model.TEXT)).isEqualTo(State.OPEN);
+        assertThatThrownBy(text::acquirePermission).isInstanceOf(CircuitOpenException.class);
+    }
+
+    @Test
+    void visionHasItsOwnBreaker() {
+        fail(text, 4);
+
+        Breaker vision = breakers.forOperation(Operation.SCAN_RECEIPT);
+        vision.acquirePermission();
+        assertThat(breakers.state(Model.VISION)).isEqualTo(State.CLOSED);
+    }
+
+    private static void succeed(Breaker breaker, int times) {
+        for (int i = 0; i < times; i++) {
+            breaker.acquirePermission();
+            breaker.onSuccess(0);
+        }
+    }
+
+    private static void fail(Breaker breaker, int times) {
+        for (int i = 0; i < times; i++) {
+            breaker.acquirePermission();
+            breaker.onFailure();
+        }
+    }
+}
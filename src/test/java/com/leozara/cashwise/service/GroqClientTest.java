@@ -0,0 +1,184 @@
+package com.leozara.cashwise.service;
+
+import com.leozara.cashwise.service.GroqClient.Operation;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class GroqClientTest {
+
+    private static final String COMPLETION =
+            "{\"choices\":[{\"message\":{\"content\":\"Food\"}}],\"usage\":{\"prompt_tokens\":42,\"completion_tokens\":3}}";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AiTelemetry telemetry =
+            new AiTelemetry(meterRegistry, mock(HouseholdMembershipResolver.class), 100);
+    private GroqCircuitBreakers circuitBreakers =
+            new GroqCircuitBreakers(meterRegistry, 20, 10, 50,
+                    Duration.ofSeconds(30), Duration.ofSeconds(30), Duration.ofSeconds(30));
+    private HttpServer server;
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final CountDownLatch arrived = new CountDownLatch(1);
+    private final CountDownLatch upstreamCancelled = new CountDownLatch(1);
+
+    @BeforeEach
+    void startServer() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", exchange -> {
+            String request = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            if (request.contains("\"stream\":true")) {
+                streamForever(exchange);
+                return;
+            }
+            arrived.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = COMPLETION.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    /** Sends "Hel", then "lo" every 20 ms until the client goes away. */
+    private void streamForever(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream out = exchange.getResponseBody();
+        try {
+            out.write(chunk("{\"role\":\"assistant\"}"));
+            out.write(chunk("{\"content\":\"Hel\"}"));
+            for (int i = 0; i < 500; i++) {
+                out.write(chunk("{\"content\":\"lo\"}"));
+                out.flush();
+                Thread.sleep(20);
+            }
+        } catch (IOException e) {
+            upstreamCancelled.countDown();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static byte[] chunk(String delta) {
+        return ("data: {\"choices\":[{\"delta\":" + delta + "}]}\n\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    @AfterEach
+    void stopServer() {
+        release.countDown();
+        server.stop(0);
+    }
+
+    private GroqClient client(int maxInFlight, int maxQueued, Duration categoryTimeout) {
+        String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/v1/chat/completions";
+        return new GroqClient(telemetry, circuitBreakers, url, "test-key", maxInFlight, maxQueued, Duration.ofSeconds(5), Duration.ofSeconds(2),
+                categoryTimeout, Duration.ofSeconds(10), Duration.ofSeconds(10), Duration.ofSeconds(10));
+    }
+
+    @Test
+    void rejectsCallsBeyondInFlightAndQueueLimits() throws Exception {
+        GroqClient client = client(1, 1, Duration.ofSeconds(10));
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            Future<Map<String, Object>> running = callers.submit(() -> client.complete(Operation.CATEGORY, Map.of()));
+            assertThat(arrived.await(5, TimeUnit.SECONDS)).isTrue();
+            Future<Map<String, Object>> waiting = callers.submit(() -> client.complete(Operation.CATEGORY, Map.of()));
+            Thread.sleep(200);
+
+            assertThatThrownBy(() -> client.complete(Operation.CATEGORY, Map.of()))
+                    .isInstanceOf(GroqClient.SaturatedException.class);
+
+            release.countDown();
+            assertThat(running.get(5, TimeUnit.SECONDS)).containsKey("choices");
+            assertThat(waiting.get(5, TimeUnit.SECONDS)).containsKey("choices");
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    void appliesPerOperationTimeout() {
+        GroqClient client = client(4, 4, Duration.ofMillis(300));
+
+        assertThatThrownBy(() -> client.complete(Operation.CATEGORY, Map.of()))
+                .isInstanceOf(HttpTimeoutException.class);
+        assertThat(meterRegistry.get("ai.groq.errors").tag("operation", "category").tag("kind", "timeout")
+                .counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void streamsDeltasAndCancelsUpstreamWhenClosedEarly() throws Exception {
+        GroqClient client = client(1, 0, Duration.ofSeconds(10));
+
+        try (GroqClient.CompletionStream stream = client.stream(Operation.CHAT, Map.of())) {
+            assertThat(stream.next()).isEqualTo("Hel");
+            assertThat(stream.next()).isEqualTo("lo");
+        }
+
+        assertThat(upstreamCancelled.await(5, TimeUnit.SECONDS)).isTrue();
+        release.countDown();
+        // The slot was given back: with max-in-flight 1 and no queue this would otherwise be rejected
+        assertThat(client.complete(Operation.CHAT, Map.of())).containsKey("choices");
+    }
+
+    @Test
+    void recordsLatencyAndTokensReportedByGroq() throws Exception {
+        release.countDown();
+
+        client(1, 1, Duration.ofSeconds(10)).complete(Operation.INSIGHTS, Map.of("model", "llama"));
+
+        assertThat(meterRegistry.get("ai.prompt.tokens").tag("operation", "insights").tag("model", "llama")
+                .summary().totalAmount()).isEqualTo(42);
+        assertThat(meterRegistry.get("ai.completion.tokens").tag("operation", "insights").summary().totalAmount())
+                .isEqualTo(3);
+        assertThat(meterRegistry.get("ai.groq.latency").tag("operation", "insights").tag("outcome", "success")
+                .timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void failsFastOnceTheTextCircuitOpens() {
+        circuitBreakers = new GroqCircuitBreakers(meterRegistry, 4, 2, 50,
+                Duration.ofSeconds(30), Duration.ofSeconds(30), Duration.ofMinutes(1));
+        GroqClient client = client(4, 4, Duration.ofMillis(200));
+
+        for (int i = 0; i < 2; i++) {
+            assertThatThrownBy(() -> client.complete(Operation.CATEGORY, Map.of()))
+                    .isInstanceOf(HttpTimeoutException.class);
+        }
+
+        long started = System.nanoTime();
+        assertThatThrownBy(() -> client.complete(Operation.INSIGHTS, Map.of()))
+                .isInstanceOf(GroqCircuitBreakers.CircuitOpenException.class);
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(Duration.ofMillis(100));
+        assertThat(circuitBreakers.state(GroqCircuitBreakers.Model.VISION)).isEqualTo(GroqCircuitBreakers.State.CLOSED);
+    }
+}
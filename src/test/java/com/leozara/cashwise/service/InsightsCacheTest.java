@@ -0,0 +1,99 @@
+package com.leozara.cashwise.service;
+
+import com.leozara.cashwise.dto.InsightDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class InsightsCacheTest {
+
+    private static final Long ALICE = 1L;
+    private static final Long BOB = 2L;
+    private static final Long CAROL = 3L;
+
+    private final HouseholdMembershipResolver memberships = mock(HouseholdMembershipResolver.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger generated = new AtomicInteger();
+    private HouseholdDataVersions dataVersions;
+    private InsightsCache cache;
+
+    @BeforeEach
+    void setUp() {
+        // Alice and Bob share household 10, Carol is alone in 20
+        when(memberships.getHouseholdId(ALICE)).thenReturn(10L);
+        when(memberships.getHouseholdId(BOB)).thenReturn(10L);
+        when(memberships.getHouseholdId(CAROL)).thenReturn(20L);
+        ApplicationEventPublisher events = event -> cache.onHouseholdDataChanged((HouseholdDataChangedEvent) event);
+        dataVersions = new HouseholdDataVersions(memberships, events, 1000);
+        cache = new InsightsCache(memberships, dataVersions, meterRegistry, 1000, Duration.ofHours(6));
+    }
+
+    @Test
+    void sharesEntriesWithinHouseholdAndCurrency() {
+        cache.get(ALICE, "eur", generator());
+        cache.get(BOB, "EUR", generator());
+        cache.get(BOB, "BRL", generator());
+
+        assertThat(generated).hasValue(2);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "insights").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void dataChangeDropsEveryCurrencyOfThatHouseholdOnly() {
+        cache.get(ALICE, "EUR", generator());
+        cache.get(ALICE, "BRL", generator());
+        cache.get(CAROL, "EUR", generator());
+
+        dataVersions.bump(10L);
+        cache.get(BOB, "EUR", generator());
+        cache.get(BOB, "BRL", generator());
+        cache.get(CAROL, "EUR", generator());
+
+        assertThat(generated).hasValue(5);
+    }
+
+    @Test
+    void doesNotKeepInsightsGeneratedAcrossAWrite() {
+        cache.get(ALICE, "EUR", () -> {
+            generated.incrementAndGet();
+            dataVersions.bump(10L);
+            return List.of(insight());
+        });
+        cache.get(ALICE, "EUR", generator());
+
+        assertThat(generated).hasValue(2);
+    }
+
+    @Test
+    void doesNotCacheEmptyResults() {
+        cache.get(ALICE, "EUR", () -> {
+            generated.incrementAndGet();
+            return List.of();
+        });
+        cache.get(ALICE, "EUR", generator());
+
+        assertThat(generated).hasValue(2);
+    }
+
+    private Supplier<List<InsightDto>> generator() {
+        return () -> {
+            generated.incrementAndGet();
+            return List.of(insight());
+        };
+    }
+
+    private static InsightDto insight() {
+        return new InsightDto("tip", "Groceries", "Groceries are 10% below last month.", "bulb-outline");
+    }
+}
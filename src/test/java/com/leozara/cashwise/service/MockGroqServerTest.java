@@ -0,0 +1,120 @@
+package com.leozara.cashwise.service;
+
+import com.leozara.cashwise.service.GroqClient.Operation;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+/** The stand-in speaks the same protocol GroqClient expects from Groq. */
+class MockGroqServerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private MockGroqServer server;
+    private GroqClient client;
+
+    @BeforeEach
+    void start() throws Exception {
+        server = new MockGroqServer(0).start();
+        client = new GroqClient(new AiTelemetry(meterRegistry, mock(HouseholdMembershipResolver.class), 100),
+                new GroqCircuitBreakers(meterRegistry, 20, 10, 50,
+                        Duration.ofSeconds(30), Duration.ofSeconds(30), Duration.ofSeconds(30)),
+                server.url(), "mock-key", 4, 4, Duration.ofSeconds(2), Duration.ofSeconds(2),
+                Duration.ofSeconds(5), Duration.ofSeconds(5), Duration.ofSeconds(5), Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    void stop() {
+        server.close();
+    }
+
+    @Test
+    void answersCannedJsonByPromptAndReportsUsage() throws Exception {
+        Map<String, Object> completion = client.complete(Operation.CATEGORY_BATCH,
+                request("Categorize each of these 3 expenses:\n1. a\n2. b\n3. c"));
+
+        assertThat(content(completion)).isEqualTo("{\"categories\":[\"Food\",\"Food\",\"Food\"]}");
+        assertThat(meterRegistry.get("ai.completion.tokens").summary().totalAmount()).isPositive();
+    }
+
+    @Test
+    void cannedResponsesCanBeOverridden() throws Exception {
+        server.respond("Categorize this expense", "Transport");
+
+        assertThat(content(client.complete(Operation.CATEGORY, request("Categorize this expense: 'uber'"))))
+                .isEqualTo("Transport");
+    }
+
+    @Test
+    void streamsTheAnswerWordByWord() throws Exception {
+        StringBuilder answer = new StringBuilder();
+        int chunks = 0;
+        try (GroqClient.CompletionStream stream = client.stream(Operation.CHAT, request("How am I doing?"))) {
+            String delta;
+            while ((delta = stream.next()) != null) {
+                answer.append(delta);
+                chunks++;
+            }
+        }
+
+        assertThat(answer.toString()).isEqualTo(MockGroqServer.CHAT_ANSWER);
+        assertThat(chunks).isGreaterThan(1);
+        assertThat(meterRegistry.get("ai.prompt.tokens").tag("operation", "chat").summary().count()).isEqualTo(1);
+    }
+
+    @Test
+    void sendsUploadedImagesAsDataUrls() throws Exception {
+        byte[] photo = new byte[100_000];
+        new Random(1).nextBytes(photo);
+        String dataUrl = "data:image/png;base64," + Base64.getEncoder().encodeToString(photo);
+        server.respond("Extract expense data", request -> request.contains("\"url\":\"" + dataUrl + "\"") ? "sent" : "missing");
+        Map<String, Object> body = Map.of("model", "vision", "messages", List.of(Map.of("role", "user", "content", List.of(
+                Map.of("type", "image_url", "image_url", Map.of("url", GroqClient.IMAGE_URL)),
+                Map.of("type", "text", "text", "Extract expense data from this receipt.")))));
+
+        Map<String, Object> completion = client.complete(Operation.SCAN_RECEIPT, body,
+                new GroqClient.ImageUpload(new ByteArrayResource(photo), photo.length, "image/png"));
+
+        assertThat(content(completion)).isEqualTo("sent");
+    }
+
+    @Test
+    void injectsErrors() {
+        server.errors(1.0, List.of(429));
+
+        assertThatThrownBy(() -> client.complete(Operation.CATEGORY, request("Categorize this expense: 'x'")))
+                .isInstanceOfSatisfying(GroqClient.UpstreamException.class, e -> assertThat(e.getStatus()).isEqualTo(429));
+        assertThat(server.errorCount()).isEqualTo(1);
+    }
+
+    @Test
+    void delaysResponsesByTheConfiguredLatency() throws Exception {
+        server.latency(Duration.ofMillis(200), Duration.ofMillis(200));
+
+        long started = System.nanoTime();
+        client.complete(Operation.CATEGORY, request("Categorize this expense: 'x'"));
+
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isGreaterThanOrEqualTo(Duration.ofMillis(200));
+    }
+
+    private static Map<String, Object> request(String prompt) {
+        return Map.of("model", "mock-model", "messages", List.of(Map.of("role", "user", "content", prompt)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String content(Map<String, Object> completion) {
+        List<Map<String, Object>> choices = (List<Map<String, Object>>) completion.get("choices");
+        return (String) ((Map<String, Object>) choices.get(0).get("message")).get("content");
+    }
+}
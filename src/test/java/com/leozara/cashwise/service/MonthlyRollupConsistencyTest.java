@@ -0,0 +1,216 @@
+package com.leozara.cashwise.service;
+
+import com.leozara.cashwise.PostgresIntegrationTest;
+import com.leozara.cashwise.dto.AnalyticsSummaryResponse;
+import com.leozara.cashwise.dto.ExpenseCreateRequest;
+import com.leozara.cashwise.dto.ExpenseResponse;
+import com.leozara.cashwise.dto.ExpenseUpdateRequest;
+import com.leozara.cashwise.dto.IncomeCreateRequest;
+import com.leozara.cashwise.dto.IncomeResponse;
+import com.leozara.cashwise.dto.IncomeUpdateRequest;
+import com.leozara.cashwise.dto.MonthlyTotalDto;
+import com.leozara.cashwise.model.Subscription;
+import com.leozara.cashwise.repository.SubscriptionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Every write path must leave {@code monthly_rollups} equal to a fresh GROUP BY over the raw rows.
+ */
+@SpringBootTest
+class MonthlyRollupConsistencyTest extends PostgresIntegrationTest {
+
+    private static final String ROLLUPS = """
+            SELECT to_char(month, 'YYYY-MM') AS month, category, currency, kind, total, entries
+            FROM monthly_rollups WHERE household_id = ? AND entries > 0
+            ORDER BY month, category, currency, kind
+            """;
+
+    private static final String RAW = """
+            SELECT month, category, currency, kind, SUM(amount) AS total, COUNT(*) AS entries FROM (
+                SELECT to_char(date, 'YYYY-MM') AS month, category, currency, 'EXPENSE' AS kind, amount
+                FROM expenses WHERE household_id = ?
+                UNION ALL
+                SELECT to_char(date, 'YYYY-MM'), COALESCE(category, 'Other'), currency, 'INCOME', amount
+                FROM incomes WHERE household_id = ?
+            ) t GROUP BY month, category, currency, kind
+            ORDER BY month, category, currency, kind
+            """;
+
+    @Autowired private SubscriptionRepository subscriptionRepository;
+    @Autowired private HouseholdService householdService;
+    @Autowired private ExpenseService expenseService;
+    @Autowired private IncomeService incomeService;
+    @Autowired private SubscriptionService subscriptionService;
+    @Autowired private MonthlyRollupService rollupService;
+    @Autowired private AnalyticsService analyticsService;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    private Long userId;
+    private Long householdId;
+
+    @BeforeEach
+    void seedHousehold() {
+        userId = newUser().getId();
+        householdId = householdService.createHousehold(userId, "Rollup household").getId();
+    }
+
+    @Test
+    void writesKeepRollupsEqualToRawAggregates() {
+        LocalDate today = LocalDate.now();
+        ExpenseResponse single = expenseService.createExpense(expense("Groceries", "12.50", "EUR", today, "Food"), userId);
+        List<ExpenseCreateRequest> bulk = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            bulk.add(expense("Item " + i, "3.10", i % 3 == 0 ? "USD" : "EUR", today.minusMonths(i % 5),
+                    i % 2 == 0 ? "Food" : "Transport"));
+        }
+        List<ExpenseResponse> created = expenseService.createExpenses(bulk, userId);
+        IncomeResponse salary = incomeService.createIncome(income("Salary", "2500.00", today, "Salary"), userId);
+        incomeService.createIncomes(List.of(income("Gift", "50.00", today.minusMonths(1), null)), userId);
+        assertRollupsMatchRaw();
+
+        ExpenseUpdateRequest move = new ExpenseUpdateRequest();
+        move.setDescription("Groceries");
+        move.setAmount(new BigDecimal("40.00"));
+        move.setCurrency("BRL");
+        move.setDate(today.minusMonths(2));
+        move.setCategory("Shopping");
+        expenseService.updateExpense(single.getId(), move, userId);
+
+        IncomeUpdateRequest raise = new IncomeUpdateRequest();
+        raise.setDescription("Salary");
+        raise.setAmount(new BigDecimal("2700.00"));
+        raise.setCurrency("EUR");
+        raise.setDate(today);
+        raise.setCategory("Salary");
+        incomeService.updateIncome(salary.getId(), raise, userId);
+
+        expenseService.deleteExpense(created.get(0).getId(), userId);
+        incomeService.deleteIncome(salary.getId(), userId);
+        assertRollupsMatchRaw();
+
+        Subscription sub = new Subscription();
+        sub.setDescription("Streaming");
+        sub.setAmount(new BigDecimal("9.99"));
+        sub.setCurrency("EUR");
+        sub.setCategory("Entertainment");
+        sub.setFrequency("MONTHLY");
+        sub.setDayOfMonth(1);
+        sub.setActive(true);
+        sub.setNextDueDate(today.minusMonths(2).withDayOfMonth(1));
+        sub.setUserId(userId);
+        sub.setHouseholdId(householdId);
+        subscriptionRepository.save(sub);
+        assertThat(subscriptionService.processSubscriptions(userId)).isNotEmpty();
+        assertRollupsMatchRaw();
+    }
+
+    @Test
+    void concurrentIncomeUpdatesKeepRollupsEqualToRawAggregates() throws Exception {
+        LocalDate today = LocalDate.now();
+        IncomeResponse salary = incomeService.createIncome(income("Salary", "2500.00", today, "Salary"), userId);
+        int writers = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<IncomeResponse>> updates = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(writers)) {
+            for (int i = 0; i < writers; i++) {
+                IncomeUpdateRequest update = new IncomeUpdateRequest();
+                update.setDescription("Salary");
+                update.setAmount(new BigDecimal(2500 + i * 100));
+                update.setCurrency("EUR");
+                update.setDate(today.minusMonths(i % 3));
+                update.setCategory(i % 2 == 0 ? "Salary" : "Bonus");
+                updates.add(executor.submit(() -> {
+                    start.await();
+                    return incomeService.updateIncome(salary.getId(), update, userId);
+                }));
+            }
+            start.countDown();
+            for (Future<IncomeResponse> update : updates) {
+                update.get(30, TimeUnit.SECONDS);
+            }
+        }
+        assertRollupsMatchRaw();
+    }
+
+    @Test
+    void rebuildRecomputesFromRawRows() {
+        expenseService.createExpense(expense("Coffee", "3.20", "EUR", LocalDate.now(), "Food"), userId);
+        jdbcTemplate.update("UPDATE monthly_rollups SET total = 999, entries = 7 WHERE household_id = ?", householdId);
+
+        rollupService.rebuild(householdId);
+
+        assertRollupsMatchRaw();
+    }
+
+    @Test
+    void summaryOverPartialMonthsMatchesRawRows() {
+        LocalDate today = LocalDate.now();
+        for (int i = 0; i < 12; i++) {
+            expenseService.createExpense(expense("Rent", "800.00", "EUR", today.minusDays(i * 17L), "Housing"), userId);
+        }
+        LocalDate from = today.minusDays(100);
+
+        AnalyticsSummaryResponse summary = analyticsService.getSummary(userId, from, today);
+
+        BigDecimal expected = jdbcTemplate.queryForObject(
+                "SELECT SUM(amount) FROM expenses WHERE household_id = ? AND date BETWEEN ? AND ?",
+                BigDecimal.class, householdId, from, today);
+        BigDecimal actual = summary.getExpenses().stream()
+                .map(MonthlyTotalDto::getTotal).reduce(BigDecimal.ZERO, BigDecimal::add);
+        assertThat(actual).isEqualByComparingTo(expected);
+    }
+
+    private void assertRollupsMatchRaw() {
+        List<Map<String, Object>> rollups = jdbcTemplate.queryForList(ROLLUPS, householdId);
+        List<Map<String, Object>> raw = jdbcTemplate.queryForList(RAW, householdId, householdId);
+        assertThat(rollups).hasSameSizeAs(raw);
+        for (int i = 0; i < raw.size(); i++) {
+            Map<String, Object> r = rollups.get(i);
+            Map<String, Object> expected = raw.get(i);
+            assertThat(r.get("month")).isEqualTo(expected.get("month"));
+            assertThat(r.get("category")).isEqualTo(expected.get("category"));
+            assertThat(r.get("currency")).isEqualTo(expected.get("currency"));
+            assertThat(r.get("kind")).isEqualTo(expected.get("kind"));
+            assertThat((BigDecimal) r.get("total")).isEqualByComparingTo((BigDecimal) expected.get("total"));
+            assertThat(((Number) r.get("entries")).longValue()).isEqualTo(((Number) expected.get("entries")).longValue());
+        }
+    }
+
+    private ExpenseCreateRequest expense(String description, String amount, String currency,
+                                         LocalDate date, String category) {
+        ExpenseCreateRequest request = new ExpenseCreateRequest();
+        request.setDescription(description);
+        request.setAmount(new BigDecimal(amount));
+        request.setCurrency(currency);
+        request.setDate(date);
+        request.setCategory(category);
+        return request;
+    }
+
+    private IncomeCreateRequest income(String description, String amount, LocalDate date, String category) {
+        IncomeCreateRequest request = new IncomeCreateRequest();
+        request.setDescription(description);
+        request.setAmount(new BigDecimal(amount));
+        request.setCurrency("EUR");
+        request.setDate(date);
+        request.setCategory(category);
+        return request;
+    }
+}
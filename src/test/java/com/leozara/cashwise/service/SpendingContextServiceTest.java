@@ -0,0 +1,134 @@
+package com.leozara.cashwise.service;
+
+import com.leozara.cashwise.dto.AnalyticsSummaryResponse;
+import com.leozara.cashwise.dto.MonthlyTotalDto;
+import com.leozara.cashwise.model.Subscription;
+import com.leozara.cashwise.repository.SubscriptionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SpendingContextServiceTest {
+
+    private static final Long USER = 1L;
+    private static final Long HOUSEHOLD = 10L;
+
+    private final AnalyticsService analyticsService = mock(AnalyticsService.class);
+    private final SubscriptionRepository subscriptionRepository = mock(SubscriptionRepository.class);
+    private final HouseholdMembershipResolver memberships = mock(HouseholdMembershipResolver.class);
+    private HouseholdDataVersions dataVersions;
+    private SpendingContextService service;
+
+    @BeforeEach
+    void setUp() {
+        String month = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy-MM"));
+        when(memberships.getHouseholdId(USER)).thenReturn(HOUSEHOLD);
+        when(analyticsService.getSummary(eq(USER), any(), any())).thenReturn(new AnalyticsSummaryResponse(
+                LocalDate.now().minusMonths(3), LocalDate.now(),
+                List.of(new MonthlyTotalDto(month, "Groceries", "EUR", new BigDecimal("100.00"), 4),
+                        new MonthlyTotalDto(month, "Groceries", "BRL", new BigDecimal("60.00"), 1)),
+                List.of(new MonthlyTotalDto(month, "Salary", "EUR", new BigDecimal("1500.00"), 1))));
+        Subscription netflix = new Subscription();
+        netflix.setDescription("Netflix");
+        netflix.setAmount(new BigDecimal("120.00"));
+        netflix.setCurrency("EUR");
+        netflix.setFrequency("YEARLY");
+        when(subscriptionRepository.findByActiveTrueAndHouseholdId(HOUSEHOLD)).thenReturn(List.of(netflix));
+        dataVersions = new HouseholdDataVersions(memberships, event -> {}, 1000);
+        service = new SpendingContextService(analyticsService, subscriptionRepository, memberships, dataVersions, 100, 1200);
+    }
+
+    @Test
+    void loadsAggregatesOnceForManyTurnsAndCurrencies() {
+        service.build(USER, null, "EUR");
+        service.build(USER, Map.of("BRL", 6.0), "BRL");
+        service.build(USER, Map.of("USD", 1.1), "usd");
+
+        verify(analyticsService, times(1)).getSummary(eq(USER), any(), any());
+        verify(subscriptionRepository, times(1)).findByActiveTrueAndHouseholdId(HOUSEHOLD);
+    }
+
+    @Test
+    void reloadsAfterTheHouseholdDataChanges() {
+        service.build(USER, null, "EUR");
+        dataVersions.bump(HOUSEHOLD);
+        service.build(USER, null, "EUR");
+
+        verify(analyticsService, times(2)).getSummary(eq(USER), any(), any());
+    }
+
+    @Test
+    void appliesDisplayCurrencyWhenRendering() {
+        Map<String, Double> rates = Map.of("BRL", 6.0);
+
+        String eur = service.build(USER, rates, "EUR");
+        String brl = service.build(USER, rates, "BRL");
+
+        // 100 EUR + 60 BRL of groceries
+        assertThat(eur).contains("Expenses this month: EUR 110.00")
+                .contains("=== ACTIVE SUBSCRIPTIONS (1 total, EUR 10.00/month) ===")
+                .contains("- Netflix: EUR 120.00 (YEARLY)")
+                .contains("  BRL: 6.0000");
+        assertThat(brl).contains("Expenses this month: BRL 660.00")
+                .contains("Income this month:   BRL 9000.00")
+                .contains("Always express amounts in BRL in your response.");
+    }
+
+    @Test
+    void roundsAmountsLikeStringFormat() {
+        Subscription spotify = new Subscription();
+        spotify.setDescription("Spotify");
+        spotify.setAmount(new BigDecimal("1.005"));
+        spotify.setCurrency("EUR");
+        spotify.setFrequency("MONTHLY");
+        when(subscriptionRepository.findByActiveTrueAndHouseholdId(HOUSEHOLD)).thenReturn(List.of(spotify));
+
+        // The double nearest 1.005 is just below it; %.2f still renders 1.01
+        assertThat(service.build(USER, null, "EUR")).contains("- Spotify: EUR 1.01 (MONTHLY)");
+    }
+
+    @Test
+    void sendsOnlyRatesForCurrenciesInTheData() {
+        Map<String, Double> rates = Map.of("BRL", 6.0, "USD", 1.1, "JPY", 160.0, "GBP", 0.85);
+
+        String context = service.build(USER, rates, "USD");
+
+        assertThat(context).contains("  BRL: 6.0000").contains("  USD: 1.1000")
+                .doesNotContain("JPY").doesNotContain("GBP");
+    }
+
+    @Test
+    void foldsTheLongTailToStayWithinTheTokenBudget() {
+        String month = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy-MM"));
+        List<MonthlyTotalDto> expenses = new ArrayList<>();
+        for (int i = 1; i <= 30; i++) {
+            expenses.add(new MonthlyTotalDto(month, "Category " + i, "EUR", new BigDecimal(i * 10), 1));
+        }
+        when(analyticsService.getSummary(eq(USER), any(), any())).thenReturn(new AnalyticsSummaryResponse(
+                LocalDate.now().minusMonths(3), LocalDate.now(), expenses, List.of()));
+        SpendingContextService tight = new SpendingContextService(
+                analyticsService, subscriptionRepository, memberships, dataVersions, 100, 300);
+
+        String context = tight.build(USER, null, "EUR");
+
+        assertThat(ContextAssembler.estimateTokens(context)).isLessThanOrEqualTo(300);
+        assertThat(context).contains("=== CURRENT MONTH")
+                .contains("- Category 30: EUR 300.00")
+                .doesNotContain("- Category 1: ")
+                .contains("other categories: EUR");
+    }
+}
@@ -0,0 +1,80 @@
+package com.leozara.cashwise.service;
+
+import com.leozara.cashwise.PostgresIntegrationTest;
+import com.leozara.cashwise.dto.ExpenseCreateRequest;
+import com.leozara.cashwise.dto.ExpenseResponse;
+import com.leozara.cashwise.dto.ExpenseUpdateRequest;
+import com.leozara.cashwise.dto.SyncResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = "app.sync.overlap-seconds=0")
+class SyncServiceTest extends PostgresIntegrationTest {
+
+    @Autowired private HouseholdService householdService;
+    @Autowired private ExpenseService expenseService;
+    @Autowired private SyncService syncService;
+
+    private Long userId;
+
+    @BeforeEach
+    void seedHousehold() {
+        userId = newUser().getId();
+        householdService.createHousehold(userId, "Sync household");
+    }
+
+    @Test
+    void returnsOnlyRowsChangedOrDeletedSinceToken() throws InterruptedException {
+        ExpenseResponse kept = expenseService.createExpense(expense("Coffee"), userId);
+        ExpenseResponse edited = expenseService.createExpense(expense("Lunch"), userId);
+        ExpenseResponse removed = expenseService.createExpense(expense("Taxi"), userId);
+
+        SyncResponse first = syncService.changesSince(userId, null);
+        assertThat(first.isFull()).isTrue();
+        assertThat(first.getExpenses()).hasSize(3);
+
+        Thread.sleep(5);
+        ExpenseUpdateRequest update = new ExpenseUpdateRequest();
+        update.setDescription("Team lunch");
+        update.setAmount(new BigDecimal("30.00"));
+        update.setCurrency("EUR");
+        update.setDate(LocalDate.now());
+        update.setCategory("Food");
+        expenseService.updateExpense(edited.getId(), update, userId);
+        expenseService.deleteExpense(removed.getId(), userId);
+
+        SyncResponse delta = syncService.changesSince(userId, first.getToken());
+        assertThat(delta.isFull()).isFalse();
+        assertThat(delta.getExpenses()).extracting(ExpenseResponse::getId).containsExactly(edited.getId());
+        assertThat(delta.getDeleted().getExpenses()).containsExactly(removed.getId());
+        assertThat(delta.getExpenses()).extracting(ExpenseResponse::getId).doesNotContain(kept.getId());
+
+        SyncResponse idle = syncService.changesSince(userId, delta.getToken());
+        assertThat(idle.getExpenses()).isEmpty();
+        assertThat(idle.getDeleted().getExpenses()).isEmpty();
+    }
+
+    @Test
+    void rejectsMalformedToken() {
+        assertThatThrownBy(() -> syncService.changesSince(userId, "not a token"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private ExpenseCreateRequest expense(String description) {
+        ExpenseCreateRequest request = new ExpenseCreateRequest();
+        request.setDescription(description);
+        request.setAmount(new BigDecimal("5.00"));
+        request.setCurrency("EUR");
+        request.setDate(LocalDate.now());
+        request.setCategory("Food");
+        return request;
+    }
+}